@@ -0,0 +1,52 @@
+package edu.robocup.ssl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScheduleBenchmark {
+    @Param({"DD8.puml", "DD9.puml"})
+    private String diagram;
+
+    private List<Schedule> schedules;
+
+    @Setup
+    public void setup() throws IOException {
+        var teams = Team.loadTeams(Paths.get("input.csv"));
+        var scheduler = Scheduler.load(Paths.get(diagram), 35);
+        // compiled schedules store their number of fields, only schedules of the legacy engine count it
+        scheduler.setEngine(Scheduler.Engine.LEGACY);
+        int numTeams = diagram.equals("DD9.puml") ? 10 : 8;
+        var teamIds = IntStream.range(0, numTeams).boxed().collect(Collectors.toList());
+        schedules = scheduler.findAllSchedules(new Tournament(scheduler, teams).calcTeamAssignment(teamIds));
+    }
+
+    @Benchmark
+    public void findMaxNumFields(Blackhole blackhole) {
+        for (var schedule : schedules) {
+            blackhole.consume(schedule.findMaxNumFields());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package edu.robocup.ssl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulerBenchmark {
+    @Param({"DD8.puml", "DD9.puml"})
+    private String diagram;
+
+    @Param({"LEGACY", "COMPILED", "BATCH"})
+    private Scheduler.Engine engine;
+
+    private Scheduler scheduler;
+    private Map<Match, List<Team>> teamAssignment;
+
+    @Setup
+    public void setup() throws IOException {
+        var teams = Team.loadTeams(Paths.get("input.csv"));
+        scheduler = Scheduler.load(Paths.get(diagram), 35);
+        scheduler.setEngine(engine);
+        int numTeams = diagram.equals("DD9.puml") ? 10 : 8;
+        var teamIds = IntStream.range(0, numTeams).boxed().collect(Collectors.toList());
+        teamAssignment = new Tournament(scheduler, teams).calcTeamAssignment(teamIds);
+    }
+
+    @Benchmark
+    public List<Schedule> findAllSchedules() {
+        return scheduler.findAllSchedules(teamAssignment);
+    }
+
+    @Benchmark
+    public ScheduleSummary evaluate() {
+        return scheduler.evaluate(teamAssignment);
+    }
+}
@@ -0,0 +1,46 @@
+package edu.robocup.ssl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TeamBenchmark {
+    private List<Team> teams;
+
+    @Setup
+    public void setup() throws IOException {
+        teams = Team.loadTeams(Paths.get("input.csv"));
+    }
+
+    /**
+     * Next available start of every team for every hour of two days.
+     */
+    @Benchmark
+    public int nextAvailableStart() {
+        int sum = 0;
+        for (var team : teams) {
+            for (int start = 0; start < 48; start++) {
+                sum += team.nextAvailableStart(start);
+            }
+        }
+        return sum;
+    }
+}
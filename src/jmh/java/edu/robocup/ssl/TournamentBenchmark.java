@@ -0,0 +1,41 @@
+package edu.robocup.ssl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TournamentBenchmark {
+    private static final List<Integer> TEAM_IDS = List.of(0, 1, 2, 3, 4, 5, 6, 7);
+
+    private Tournament tournament;
+
+    @Setup
+    public void setup() throws IOException {
+        var teams = Team.loadTeams(Paths.get("input.csv"));
+        tournament = new Tournament(Scheduler.load(Paths.get("DD8.puml"), 35), teams);
+    }
+
+    @Benchmark
+    public List<Map<Match, List<Team>>> calcTeamAssignmentCombinations() {
+        return tournament.calcTeamAssignmentCombinations(TEAM_IDS);
+    }
+}
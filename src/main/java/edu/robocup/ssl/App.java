@@ -6,6 +6,11 @@ public class App {
     public static void main(String[] args) {
         new CommandLine(new Planner())
                 .addSubcommand(new Processor())
+                .addSubcommand(new Optimizer())
+                .addSubcommand(new BracketCompiler())
+                .addSubcommand(new ResultQuery())
+                .addSubcommand(new LivePlanner())
+                .addSubcommand(new PlanningServer())
                 .execute(args);
     }
 }
@@ -0,0 +1,38 @@
+package edu.robocup.ssl;
+
+/**
+ * Precomputed waiting times for the teams of one tournament, indexed by team index and hour of the day.
+ * A match can start once both teams are available, so the pair table holds the larger of both waiting times.
+ */
+public class AvailabilityTable {
+    private final int numTeams;
+    private final byte[] pairWaits;
+    private final byte[] worstWaits;
+
+    public AvailabilityTable(Team[] teams) {
+        numTeams = teams.length;
+        pairWaits = new byte[numTeams * numTeams * 24];
+        worstWaits = new byte[24];
+        for (int a = 0; a < numTeams; a++) {
+            for (int b = 0; b < numTeams; b++) {
+                for (int hour = 0; hour < 24; hour++) {
+                    pairWaits[(a * numTeams + b) * 24 + hour] = (byte) Math.max(teams[a].waitAt(hour), teams[b].waitAt(hour));
+                }
+            }
+            for (int hour = 0; hour < 24; hour++) {
+                worstWaits[hour] = (byte) Math.max(worstWaits[hour], teams[a].waitAt(hour));
+            }
+        }
+    }
+
+    public int nextCommonStart(int teamA, int teamB, int start) {
+        return start + pairWaits[(teamA * numTeams + teamB) * 24 + start % 24];
+    }
+
+    /**
+     * Latest next available start of any team.
+     */
+    public int worstNextStart(int start) {
+        return start + worstWaits[start % 24];
+    }
+}
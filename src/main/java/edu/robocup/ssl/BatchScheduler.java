@@ -0,0 +1,252 @@
+package edu.robocup.ssl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates all outcomes of a team mapping in batches, one outcome per lane, in structure-of-arrays form.
+ * <p>
+ * Outcome {@code i} takes branch {@code (i >> k) & 1} at the {@code k}-th branching match, so the teams of every lane
+ * follow from its index with branch-free arithmetic. Matches are processed in ordinal order, each one as a
+ * loop over all lanes of the batch, and the maxima are reduced over the lanes at the end.
+ * The slot a team moves on to depends only on the bracket and is computed once.
+ * <p>
+ * The loops are plain Java that the JIT may vectorize; the availability lookup is a table gather.
+ * Only unlimited fields are supported, transposition cache and bounded search do not apply.
+ * <p>
+ * Every outcome is evaluated from the first match on, while the depth-first search of {@link CompiledScheduler}
+ * evaluates a common prefix of outcomes only once. On the DD8 and DD9 brackets this makes the batch evaluation
+ * several times slower than the compiled engine, see the baseline of {@code SchedulerBenchmark}.
+ */
+public class BatchScheduler {
+    static final int MAX_LANES = 1024;
+
+    private final CompiledBracket bracket;
+    private final int initialStart;
+    private final int numBranchPoints;
+    /**
+     * Bit of the outcome index that selects the branch of a match, -1 for matches without follow-ups.
+     */
+    private final int[] branchBit;
+    /**
+     * Team slot (0 or 1) that the team moving on to each follow-up takes there.
+     */
+    private final int[][] followUpSlots;
+    /**
+     * Lowest branch bit that the teams of a match depend on. Later matches get the lower bits, so the rows of
+     * early matches are the same in all lanes of a batch and are computed only once.
+     */
+    private final int[] lowestAncestorBit;
+    /**
+     * Later matches that can start at the same time as a match, i.e. that do not depend on it.
+     */
+    private final int[][] independentMatches;
+
+    public BatchScheduler(CompiledBracket bracket, int initialStart) {
+        this.bracket = bracket;
+        this.initialStart = initialStart;
+        int n = bracket.size();
+        branchBit = new int[n];
+        followUpSlots = new int[n][];
+        int[] numAssigned = new int[n];
+        for (int m = 0; m < n; m++) {
+            numAssigned[m] = 2 - bracket.getPredecessors()[m].length;
+        }
+        int bits = 0;
+        for (int m = n - 1; m >= 0; m--) {
+            branchBit[m] = bracket.getFollowUps()[m].length > 0 ? bits++ : -1;
+        }
+        lowestAncestorBit = new int[n];
+        for (int m = 0; m < n; m++) {
+            lowestAncestorBit[m] = Integer.MAX_VALUE;
+            for (int predecessor : bracket.getPredecessors()[m]) {
+                lowestAncestorBit[m] = Math.min(lowestAncestorBit[m],
+                        Math.min(branchBit[predecessor], lowestAncestorBit[predecessor]));
+            }
+        }
+        for (int m = 0; m < n; m++) {
+            int[] followUps = bracket.getFollowUps()[m];
+            followUpSlots[m] = new int[followUps.length];
+            for (int j = 0; j < followUps.length; j++) {
+                followUpSlots[m][j] = numAssigned[followUps[j]]++;
+            }
+        }
+        if (bits > 62) {
+            throw new IllegalArgumentException("Too many branching matches for batch evaluation: " + bits);
+        }
+        numBranchPoints = bits;
+        independentMatches = calcIndependentMatches();
+    }
+
+    private int[][] calcIndependentMatches() {
+        int n = bracket.size();
+        var ancestors = new BitSet[n];
+        for (int m = 0; m < n; m++) {
+            ancestors[m] = new BitSet(n);
+            for (int predecessor : bracket.getPredecessors()[m]) {
+                ancestors[m].set(predecessor);
+                ancestors[m].or(ancestors[predecessor]);
+            }
+        }
+        int[][] independent = new int[n][];
+        for (int m = 0; m < n; m++) {
+            int match = m;
+            independent[m] = IntStream.range(m + 1, n).filter(other -> !ancestors[other].get(match)).toArray();
+        }
+        return independent;
+    }
+
+    public ScheduleSummary evaluate(Map<Match, List<Team>> teamMapping) {
+        int n = bracket.size();
+        long numOutcomes = 1L << numBranchPoints;
+        int lanes = (int) Math.min(MAX_LANES, numOutcomes);
+        int laneBits = Long.numberOfTrailingZeros(lanes);
+        var batch = new Batch(n, lanes);
+        var availability = batch.seed(teamMapping);
+
+        int maxEndTime = 0;
+        int maxNumFields = 0;
+        for (long first = 0; first < numOutcomes; first += lanes) {
+            batch.run(availability, first, laneBits);
+            maxEndTime = Math.max(maxEndTime, batch.maxEndTime());
+            maxNumFields = Math.max(maxNumFields, batch.maxNumFields());
+        }
+        int numSchedules = (int) Math.min(numOutcomes, Integer.MAX_VALUE);
+        return new ScheduleSummary(numSchedules, maxEndTime, maxNumFields, 0, numOutcomes * n);
+    }
+
+    /**
+     * State of one batch, every array holds one row of {@code lanes} values per match.
+     */
+    private class Batch {
+        final int n;
+        final int lanes;
+        final int[] teamA;
+        final int[] teamB;
+        final int[] startTimes;
+        final int[] concurrent;
+        final int[] base;
+
+        Batch(int n, int lanes) {
+            this.n = n;
+            this.lanes = lanes;
+            teamA = new int[n * lanes];
+            teamB = new int[n * lanes];
+            startTimes = new int[n * lanes];
+            concurrent = new int[n * lanes];
+            base = new int[lanes];
+        }
+
+        /**
+         * Fill the rows of the seeded slots, which are the same for every outcome.
+         */
+        AvailabilityTable seed(Map<Match, List<Team>> teamMapping) {
+            List<Team> teams = new ArrayList<>();
+            teamMapping.forEach((match, matchTeams) -> {
+                int row = bracket.ordinal(match) * lanes;
+                for (int slot = 0; slot < matchTeams.size(); slot++) {
+                    Arrays.fill(slot == 0 ? teamA : teamB, row, row + lanes, teams.size());
+                    teams.add(matchTeams.get(slot));
+                }
+            });
+            return new AvailabilityTable(teams.toArray(new Team[0]));
+        }
+
+        void run(AvailabilityTable availability, long first, int laneBits) {
+            for (int m = 0; m < n; m++) {
+                int row = m * lanes;
+                if (lowestAncestorBit[m] >= laneBits) {
+                    int start = availability.nextCommonStart(teamA[row], teamB[row], baseTime(m, 0));
+                    Arrays.fill(startTimes, row, row + lanes, start);
+                    advance(m, first);
+                    continue;
+                }
+                int[] predecessors = bracket.getPredecessors()[m];
+                if (predecessors.length == 0) {
+                    Arrays.fill(base, initialStart + 1);
+                } else {
+                    System.arraycopy(startTimes, predecessors[0] * lanes, base, 0, lanes);
+                    for (int p = 1; p < predecessors.length; p++) {
+                        int other = predecessors[p] * lanes;
+                        for (int l = 0; l < lanes; l++) {
+                            base[l] = Math.max(base[l], startTimes[other + l]);
+                        }
+                    }
+                    for (int l = 0; l < lanes; l++) {
+                        base[l]++;
+                    }
+                }
+                for (int l = 0; l < lanes; l++) {
+                    startTimes[row + l] = availability.nextCommonStart(teamA[row + l], teamB[row + l], base[l]);
+                }
+                advance(m, first);
+            }
+        }
+
+        int baseTime(int m, int lane) {
+            int base = initialStart;
+            for (int predecessor : bracket.getPredecessors()[m]) {
+                base = Math.max(base, startTimes[predecessor * lanes + lane]);
+            }
+            return base + 1;
+        }
+
+        /**
+         * Move the teams of a match on to its follow-ups. The team moving on to follow-up {@code j} is the first team
+         * if the branch bit equals {@code j}, like {@link CompiledScheduler} branches.
+         */
+        void advance(int m, long first) {
+            int[] followUps = bracket.getFollowUps()[m];
+            int row = m * lanes;
+            int bit = branchBit[m];
+            for (int j = 0; j < followUps.length; j++) {
+                int[] target = followUpSlots[m][j] == 0 ? teamA : teamB;
+                int targetRow = followUps[j] * lanes;
+                for (int l = 0; l < lanes; l++) {
+                    int branch = (int) ((first + l) >>> bit) & 1;
+                    // all ones selects the second team
+                    int mask = -(branch ^ j);
+                    int a = teamA[row + l];
+                    target[targetRow + l] = a ^ ((a ^ teamB[row + l]) & mask);
+                }
+            }
+        }
+
+        int maxEndTime() {
+            int max = 0;
+            for (int i = 0; i < n * lanes; i++) {
+                max = Math.max(max, startTimes[i]);
+            }
+            return max;
+        }
+
+        /**
+         * Number of matches sharing the start time of each match, counted pairwise over the rows of matches
+         * that do not depend on each other.
+         */
+        int maxNumFields() {
+            Arrays.fill(concurrent, 1);
+            for (int m = 0; m < n; m++) {
+                int row = m * lanes;
+                for (int other : independentMatches[m]) {
+                    int otherRow = other * lanes;
+                    for (int l = 0; l < lanes; l++) {
+                        int difference = startTimes[row + l] - startTimes[otherRow + l];
+                        int same = 1 - ((difference | -difference) >>> 31);
+                        concurrent[row + l] += same;
+                        concurrent[otherRow + l] += same;
+                    }
+                }
+            }
+            int max = 0;
+            for (int value : concurrent) {
+                max = Math.max(max, value);
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package edu.robocup.ssl;
+
+import lombok.SneakyThrows;
+import picocli.CommandLine;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Compiles a tournament diagram into a {@link BracketFile}, which can be passed to all commands
+ * instead of the diagram.
+ */
+@CommandLine.Command(name = "compile")
+public class BracketCompiler implements Runnable {
+
+    @CommandLine.Option(names = {"-d", "--tournamentDiagramFile"})
+    private Path tournamentDiagramFile = Paths.get("DD8.puml");
+
+    @CommandLine.Option(names = {"-o", "--output"},
+            description = "Compiled bracket file, defaults to the diagram file with the extension .bracket")
+    private Path output;
+
+    @SneakyThrows
+    @Override
+    public void run() {
+        if (output == null) {
+            var name = tournamentDiagramFile.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+            output = tournamentDiagramFile.resolveSibling(name + ".bracket");
+        }
+        var bracket = Scheduler.compile(tournamentDiagramFile);
+        BracketFile.write(bracket, output);
+        System.out.printf("Compiled %d matches into %s%n", bracket.size(), output);
+    }
+}
@@ -0,0 +1,126 @@
+package edu.robocup.ssl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact binary form of a {@link CompiledBracket}, so runs do not need to parse the tournament diagram.
+ * <p>
+ * Layout: magic, version and number of matches, followed by one record per match in ordinal order:
+ * the name as length prefixed UTF-8, the team demand, the predecessor and follow-up ordinals,
+ * each list prefixed with its length, and the index of the winner's follow-up or -1.
+ * All numbers except the header are single bytes.
+ */
+public final class BracketFile {
+    private static final int MAGIC = 0x5353_4c42;
+    private static final int VERSION = 2;
+
+    private BracketFile() {
+    }
+
+    public static boolean isBracketFile(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] header = in.readNBytes(Integer.BYTES);
+            return header.length == Integer.BYTES && ByteBuffer.wrap(header).getInt() == MAGIC;
+        }
+    }
+
+    public static void write(CompiledBracket bracket, Path file) throws IOException {
+        var buffer = ByteBuffer.allocate(encodedSize(bracket));
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(bracket.size());
+        var matches = bracket.getMatches();
+        for (int i = 0; i < matches.length; i++) {
+            byte[] name = matches[i].getName().getBytes(StandardCharsets.UTF_8);
+            buffer.put(toByte(name.length));
+            buffer.put(name);
+            buffer.put((byte) (2 - bracket.getPredecessors()[i].length));
+            putOrdinals(buffer, bracket.getPredecessors()[i]);
+            putOrdinals(buffer, bracket.getFollowUps()[i]);
+            buffer.put((byte) bracket.getWinnerFollowUps()[i]);
+        }
+        Files.write(file, buffer.array());
+    }
+
+    /**
+     * Map the file into memory and rebuild the match graph with the stored ordinals.
+     */
+    public static CompiledBracket read(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a compiled bracket: " + file);
+        }
+        var matches = new Match[buffer.getInt()];
+        int[] demand = new int[matches.length];
+        int[][] predecessors = new int[matches.length][];
+        int[][] followUps = new int[matches.length][];
+        int[] winnerFollowUps = new int[matches.length];
+        for (int i = 0; i < matches.length; i++) {
+            byte[] name = new byte[buffer.get()];
+            buffer.get(name);
+            matches[i] = new Match(new String(name, StandardCharsets.UTF_8));
+            demand[i] = buffer.get();
+            predecessors[i] = getOrdinals(buffer);
+            followUps[i] = getOrdinals(buffer);
+            winnerFollowUps[i] = buffer.get();
+        }
+        for (int i = 0; i < matches.length; i++) {
+            for (int predecessor : predecessors[i]) {
+                matches[i].predecessor(matches[predecessor]);
+            }
+            for (int followUp : followUps[i]) {
+                matches[i].followUp(matches[followUp]);
+            }
+            if (winnerFollowUps[i] >= 0) {
+                matches[i].setWinnerFollowUp(matches[followUps[i][winnerFollowUps[i]]]);
+            }
+        }
+        for (int i = 0; i < matches.length; i++) {
+            if (demand[i] != 2 - matches[i].getPredecessors().size()) {
+                throw new IOException("Inconsistent team demand of " + matches[i].getName() + " in " + file);
+            }
+        }
+        return CompiledBracket.ofOrdered(matches);
+    }
+
+    private static int encodedSize(CompiledBracket bracket) {
+        int size = 3 * Integer.BYTES;
+        for (int i = 0; i < bracket.size(); i++) {
+            size += 5 + bracket.getMatches()[i].getName().getBytes(StandardCharsets.UTF_8).length
+                    + bracket.getPredecessors()[i].length + bracket.getFollowUps()[i].length;
+        }
+        return size;
+    }
+
+    private static void putOrdinals(ByteBuffer buffer, int[] ordinals) {
+        buffer.put(toByte(ordinals.length));
+        for (int ordinal : ordinals) {
+            buffer.put(toByte(ordinal));
+        }
+    }
+
+    private static int[] getOrdinals(ByteBuffer buffer) {
+        int[] ordinals = new int[buffer.get()];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = buffer.get();
+        }
+        return ordinals;
+    }
+
+    private static byte toByte(int value) {
+        if (value > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Value does not fit into the bracket format: " + value);
+        }
+        return (byte) value;
+    }
+}
@@ -0,0 +1,107 @@
+package edu.robocup.ssl;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Automorphisms of a bracket, i.e. relabelings of matches that keep predecessors and follow-ups intact,
+ * like swapping two first round matches that feed the same matches or mirroring the two bracket halves.
+ * Team mappings that are mapped onto each other by an automorphism have the same outcomes.
+ */
+public class BracketSymmetry {
+    private final CompiledBracket bracket;
+    @Getter
+    private final List<int[]> automorphisms = new ArrayList<>();
+
+    public BracketSymmetry(CompiledBracket bracket) {
+        this.bracket = bracket;
+        int n = bracket.size();
+        findAutomorphisms(0, new int[n], new boolean[n]);
+    }
+
+    /**
+     * Canonical representation of a team mapping. Teams are only represented by their availability window,
+     * so teams with identical windows are interchangeable, and the order of teams within a match is ignored.
+     * The lexicographically smallest encoding over all automorphisms is used.
+     */
+    public String canonicalKey(Map<Match, List<Team>> teamMapping) {
+        int n = bracket.size();
+        char[] codes = new char[n * 2];
+        teamMapping.forEach((match, teams) -> {
+            int ordinal = bracket.ordinal(match);
+            char a = teams.isEmpty() ? 0 : (char) (1 + teams.get(0).windowCode());
+            char b = teams.size() < 2 ? 0 : (char) (1 + teams.get(1).windowCode());
+            codes[ordinal * 2] = (char) Math.min(a, b);
+            codes[ordinal * 2 + 1] = (char) Math.max(a, b);
+        });
+
+        char[] best = null;
+        char[] candidate = new char[n * 2];
+        for (int[] automorphism : automorphisms) {
+            for (int i = 0; i < n; i++) {
+                candidate[automorphism[i] * 2] = codes[i * 2];
+                candidate[automorphism[i] * 2 + 1] = codes[i * 2 + 1];
+            }
+            if (best == null || compare(candidate, best) < 0) {
+                best = candidate.clone();
+            }
+        }
+        return new String(best);
+    }
+
+    private static int compare(char[] a, char[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) {
+                return a[i] - b[i];
+            }
+        }
+        return 0;
+    }
+
+    private void findAutomorphisms(int match, int[] image, boolean[] used) {
+        int n = bracket.size();
+        if (match == n) {
+            automorphisms.add(image.clone());
+            return;
+        }
+        for (int candidate = 0; candidate < n; candidate++) {
+            if (!used[candidate] && isCompatible(match, candidate, image)) {
+                used[candidate] = true;
+                image[match] = candidate;
+                findAutomorphisms(match + 1, image, used);
+                used[candidate] = false;
+            }
+        }
+    }
+
+    /**
+     * Predecessors have smaller ordinals, so they are mapped already and must map onto predecessors of the candidate.
+     * Follow-ups are checked once they are mapped themselves.
+     */
+    private boolean isCompatible(int match, int candidate, int[] image) {
+        int[] predecessors = bracket.getPredecessors()[match];
+        int[] candidatePredecessors = bracket.getPredecessors()[candidate];
+        if (predecessors.length != candidatePredecessors.length
+                || bracket.getFollowUps()[match].length != bracket.getFollowUps()[candidate].length) {
+            return false;
+        }
+        for (int predecessor : predecessors) {
+            if (!contains(candidatePredecessors, image[predecessor])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
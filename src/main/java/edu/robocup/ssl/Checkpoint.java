@@ -0,0 +1,134 @@
+package edu.robocup.ssl;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.zip.CRC32;
+
+/**
+ * Progress of a {@link Processor} run, stored in a compact binary file:
+ * the cursor below which all combinations are completed, a bitmap of the completed combinations after the cursor
+ * and the aggregated results of the {@link Evaluator}.
+ * <p>
+ * The file is written to a temporary file first and then renamed, so an interrupted write never replaces
+ * a valid checkpoint.
+ */
+@RequiredArgsConstructor
+public class Checkpoint {
+    private static final int MAGIC = 0x5353_4c43;
+    private static final int VERSION = 2;
+
+    private final Path file;
+    /**
+     * Identifies the inputs of the run, a checkpoint can only be resumed with the same inputs.
+     */
+    private final String runKey;
+
+    public boolean exists() {
+        return Files.exists(file);
+    }
+
+    /**
+     * Encode the current progress. The caller must make sure that no results are recorded meanwhile,
+     * the returned data can be written without holding any lock.
+     */
+    public byte[] encode(BitSet completedCombinations, Evaluator evaluator) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(runKey);
+
+        int cursor = completedCombinations.nextClearBit(0);
+        long[] words = completedCombinations.get(cursor, Math.max(cursor, completedCombinations.length())).toLongArray();
+        out.writeInt(cursor);
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+        evaluator.writeAggregates(out);
+
+        var crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Replace the checkpoint atomically. The data reaches the disk before the rename, so a crash never leaves
+     * an empty checkpoint behind.
+     */
+    public void write(byte[] data) throws IOException {
+        var tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(tmpFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Make the rename durable where the platform allows to open a directory, e.g. not on Windows.
+     */
+    private static void syncDirectory(Path directory) {
+        try (var channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // the rename is still atomic, it may only be lost on a crash
+        }
+    }
+
+    /**
+     * Read the checkpoint, restore the aggregated results into the evaluator and return the completed combinations.
+     */
+    public BitSet restore(Evaluator evaluator) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        if (data.length < Long.BYTES) {
+            throw new IOException("Checkpoint " + file + " is truncated");
+        }
+        var crc = new CRC32();
+        crc.update(data, 0, data.length - Long.BYTES);
+        var in = new DataInputStream(new ByteArrayInputStream(data));
+        in.skipBytes(data.length - Long.BYTES);
+        if (in.readLong() != crc.getValue()) {
+            throw new IOException("Checkpoint " + file + " is corrupt");
+        }
+
+        in = new DataInputStream(new ByteArrayInputStream(Arrays.copyOf(data, data.length - Long.BYTES)));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException(file + " is not a checkpoint of this version");
+        }
+        var checkpointRunKey = in.readUTF();
+        if (!checkpointRunKey.equals(runKey)) {
+            throw new IOException("Checkpoint " + file + " belongs to a different run: " + checkpointRunKey);
+        }
+
+        int cursor = in.readInt();
+        long[] words = new long[in.readInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        var completedCombinations = new BitSet();
+        completedCombinations.set(0, cursor);
+        BitSet.valueOf(words).stream().forEach(i -> completedCombinations.set(cursor + i));
+        evaluator.readAggregates(in);
+        return completedCombinations;
+    }
+}
@@ -0,0 +1,55 @@
+package edu.robocup.ssl;
+
+import org.apache.commons.math3.util.CombinatoricsUtils;
+
+/**
+ * Ranks of {@code k}-combinations in the order of {@link CombinatoricsUtils#combinationsIterator(int, int)},
+ * i.e. colexicographic order: the rank of the ascending combination {@code c} is the sum of
+ * {@code binomial(c[i], i + 1)}. Ranks do not depend on the number of elements to choose from.
+ */
+public final class Combinations {
+
+    private Combinations() {
+    }
+
+    /**
+     * Number of {@code k}-combinations of {@code n} elements.
+     *
+     * @throws org.apache.commons.math3.exception.MathArithmeticException if the count does not fit into a long
+     */
+    public static long count(int n, int k) {
+        return CombinatoricsUtils.binomialCoefficient(n, k);
+    }
+
+    public static long rank(int[] combination) {
+        long rank = 0;
+        for (int i = 0; i < combination.length; i++) {
+            rank += binomial(combination[i], i + 1);
+        }
+        return rank;
+    }
+
+    /**
+     * The combination with the given rank, in ascending order.
+     */
+    public static int[] unrank(long rank, int k) {
+        int[] combination = new int[k];
+        int element = k - 1;
+        while (binomial(element + 1, k) <= rank) {
+            element++;
+        }
+        for (int i = k; i > 0; i--) {
+            while (binomial(element, i) > rank) {
+                element--;
+            }
+            combination[i - 1] = element;
+            rank -= binomial(element, i);
+            element--;
+        }
+        return combination;
+    }
+
+    private static long binomial(int n, int k) {
+        return n < k ? 0 : CombinatoricsUtils.binomialCoefficient(n, k);
+    }
+}
@@ -0,0 +1,137 @@
+package edu.robocup.ssl;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Dense, integer-indexed view of the match graph.
+ * Ordinals are assigned in topological order, so every predecessor of a match has a smaller ordinal.
+ */
+@Getter
+public class CompiledBracket {
+    private final Match[] matches;
+    private final int[][] predecessors;
+    private final int[][] followUps;
+    /**
+     * Index into the follow-ups of a match that the winner moves on to, -1 if unknown.
+     */
+    private final int[] winnerFollowUps;
+    private final Map<String, Integer> ordinals;
+    /**
+     * Maximum number of matches starting with the given ordinal that can be played at the same time,
+     * i.e. the width of the remaining match graph. Matches in a chain always start at different times.
+     */
+    private final int[] suffixWidth;
+
+    private CompiledBracket(Match[] matches) {
+        this.matches = matches;
+        this.ordinals = new HashMap<>();
+        for (int i = 0; i < matches.length; i++) {
+            ordinals.put(matches[i].getName(), i);
+        }
+        this.predecessors = new int[matches.length][];
+        this.followUps = new int[matches.length][];
+        this.winnerFollowUps = new int[matches.length];
+        for (int i = 0; i < matches.length; i++) {
+            predecessors[i] = toOrdinals(matches[i].getPredecessors());
+            followUps[i] = toOrdinals(matches[i].getFollowUps());
+            winnerFollowUps[i] = matches[i].getFollowUps().indexOf(matches[i].getWinnerFollowUp());
+        }
+        this.suffixWidth = calcSuffixWidth();
+    }
+
+    public static CompiledBracket compile(Collection<Match> matches) {
+        Map<Match, Integer> inDegree = new HashMap<>();
+        matches.forEach(m -> inDegree.put(m, m.getPredecessors().size()));
+
+        PriorityQueue<Match> ready = new PriorityQueue<>(Comparator.comparing(Match::getName));
+        inDegree.forEach((m, d) -> {
+            if (d == 0) {
+                ready.add(m);
+            }
+        });
+
+        Match[] ordered = new Match[matches.size()];
+        int n = 0;
+        while (!ready.isEmpty()) {
+            var match = ready.poll();
+            ordered[n++] = match;
+            for (var followUp : match.getFollowUps()) {
+                if (inDegree.merge(followUp, -1, Integer::sum) == 0) {
+                    ready.add(followUp);
+                }
+            }
+        }
+        if (n != ordered.length) {
+            throw new IllegalArgumentException("Tournament diagram contains a cycle");
+        }
+        return new CompiledBracket(ordered);
+    }
+
+    /**
+     * Compile matches that are already in topological order, e.g. read from a {@link BracketFile}.
+     */
+    public static CompiledBracket ofOrdered(Match[] matches) {
+        return new CompiledBracket(matches);
+    }
+
+    public int size() {
+        return matches.length;
+    }
+
+    public int ordinal(Match match) {
+        return ordinals.get(match.getName());
+    }
+
+    private int[] calcSuffixWidth() {
+        int n = matches.length;
+        boolean[][] reachable = new boolean[n][n];
+        for (int i = n - 1; i >= 0; i--) {
+            for (int followUp : followUps[i]) {
+                reachable[i][followUp] = true;
+                for (int j = 0; j < n; j++) {
+                    reachable[i][j] |= reachable[followUp][j];
+                }
+            }
+        }
+
+        int[] width = new int[n + 1];
+        for (int first = 0; first < n; first++) {
+            // Dilworth: the width equals the number of matches minus a maximum matching in the reachability graph
+            int[] matchedBy = new int[n];
+            Arrays.fill(matchedBy, -1);
+            int matching = 0;
+            for (int i = first; i < n; i++) {
+                if (augment(reachable, first, i, matchedBy, new boolean[n])) {
+                    matching++;
+                }
+            }
+            width[first] = n - first - matching;
+        }
+        return width;
+    }
+
+    private static boolean augment(boolean[][] reachable, int first, int i, int[] matchedBy, boolean[] visited) {
+        for (int j = first; j < reachable.length; j++) {
+            if (reachable[i][j] && !visited[j]) {
+                visited[j] = true;
+                if (matchedBy[j] < 0 || augment(reachable, first, matchedBy[j], matchedBy, visited)) {
+                    matchedBy[j] = i;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int[] toOrdinals(List<Match> list) {
+        return list.stream().mapToInt(this::ordinal).toArray();
+    }
+}
@@ -0,0 +1,675 @@
+package edu.robocup.ssl;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Depth-first outcome search on primitive state.
+ * Matches are visited in ordinal (topological) order, so all teams of a match are known once it is reached.
+ * Each branch pushes the teams into the follow-up matches and pops them again afterwards,
+ * which keeps the search free of allocations.
+ */
+@RequiredArgsConstructor
+public class CompiledScheduler {
+    private static final int UNASSIGNED = -1;
+    private static final int MIN_CACHED_MATCHES = 3;
+
+    private final CompiledBracket bracket;
+    private final int initialStart;
+
+    /**
+     * Skip subtrees whose bounds show that they can not raise the maximum end time or number of fields
+     * found so far for the current team mapping.
+     */
+    @Setter
+    private boolean bounded = false;
+
+    /**
+     * Reuse the results of subtrees that are reached with the same teams, ready times and open slots.
+     * Takes precedence over bounded search, as pruned subtrees can not be cached.
+     */
+    @Setter
+    private TranspositionCache cache;
+
+    /**
+     * Number of fields, 0 for unlimited. A match that finds all fields of its slot occupied moves on to the next slot
+     * in which both teams are available and a field is free. Matches claim fields in ordinal order,
+     * i.e. earlier rounds first. Bounded search does not prune with limited fields,
+     * as its bounds assume that matches are never delayed.
+     */
+    @Setter
+    private int maxFields = 0;
+
+    @Getter(value = AccessLevel.PRIVATE, lazy = true)
+    private final OutcomeTemplate template = OutcomeTemplate.compile(bracket);
+
+    public ScheduleSummary evaluate(Map<Match, List<Team>> teamMapping) {
+        return evaluate(teamMapping, List.of());
+    }
+
+    /**
+     * Evaluate the outcomes that are consistent with the matches played so far.
+     * Played matches keep their real start time and only the branch in which their winner moves on is searched.
+     * Cached subtrees after the last played match do not depend on the results and are shared with
+     * evaluations of other results.
+     *
+     * @throws IllegalStateException if the bracket does not label which follow-up a played match's winner moves on to
+     */
+    public ScheduleSummary evaluate(Map<Match, List<Team>> teamMapping, Collection<MatchResult> results) {
+        if (cache == null && results.isEmpty() && newIncumbent() == null && getTemplate() != null) {
+            // nothing to prune or cache, replaying the template skips the branching work
+            return getTemplate().evaluate(teamMapping, initialStart, maxFields);
+        }
+        var search = new Search(teamMapping, results);
+        if (cache != null) {
+            long result = search.runCached(0);
+            return new ScheduleSummary(numSchedulesOf(result), endTimeOf(result), numFieldsOf(result), 0, search.numNodes);
+        }
+        search.incumbent = results.isEmpty() ? newIncumbent() : null;
+        search.run(0);
+        return search.toSummary();
+    }
+
+    /**
+     * Evaluate the outcome tree with fork/join parallelism.
+     * The tree is split at every branch point until {@code forkDepth} branch points have been passed,
+     * below that each subtree is searched sequentially.
+     */
+    public ScheduleSummary evaluateParallel(Map<Match, List<Team>> teamMapping, int forkDepth) {
+        if (cache != null) {
+            return evaluate(teamMapping);
+        }
+        var search = new Search(teamMapping);
+        search.incumbent = newIncumbent();
+        return new SearchTask(search, 0, forkDepth).invoke();
+    }
+
+    public void forEachSchedule(Map<Match, List<Team>> teamMapping, Consumer<Schedule> consumer) {
+        findSchedules(teamMapping, consumer, Integer.MAX_VALUE);
+    }
+
+    public void findSchedules(Map<Match, List<Team>> teamMapping, Consumer<Schedule> consumer, int limit) {
+        findSchedules(teamMapping, List.of(), consumer, limit);
+    }
+
+    public void findSchedules(Map<Match, List<Team>> teamMapping, Collection<MatchResult> results,
+                              Consumer<Schedule> consumer, int limit) {
+        var search = new Search(teamMapping, results) {
+            @Override
+            void leaf() {
+                consumer.accept(toSchedule());
+                if (numSchedules >= limit) {
+                    stopped = true;
+                }
+            }
+        };
+        if (limit > 0) {
+            search.run(0);
+        }
+    }
+
+    private Incumbent newIncumbent() {
+        return bounded && maxFields == 0 ? new Incumbent() : null;
+    }
+
+    /**
+     * Pack the result of a subtree into 16 bits end time, 16 bits number of fields and 32 bits number of schedules,
+     * the number of schedules saturates at {@link Integer#MAX_VALUE}.
+     */
+    private static long packResult(int endTime, int numFields, long numSchedules) {
+        return ((long) endTime << 48) | ((long) numFields << 32) | Math.min(numSchedules, Integer.MAX_VALUE);
+    }
+
+    private static int endTimeOf(long result) {
+        return (int) (result >>> 48);
+    }
+
+    private static int numFieldsOf(long result) {
+        return (int) (result >>> 32) & 0xFFFF;
+    }
+
+    private static int numSchedulesOf(long result) {
+        return (int) result;
+    }
+
+    /**
+     * Pack the counts of a summary like the result of a subtree, to keep them in a {@link TranspositionCache}.
+     */
+    static long packSummary(ScheduleSummary summary) {
+        return packResult(summary.getMaxEndTime(), summary.getMaxNumFields(), summary.getNumSchedules());
+    }
+
+    static ScheduleSummary unpackSummary(long result) {
+        return new ScheduleSummary(numSchedulesOf(result), endTimeOf(result), numFieldsOf(result), 0);
+    }
+
+    private static char windowCode(Team team) {
+        return (char) (1 + team.windowCode());
+    }
+
+    private static class Incumbent {
+        final AtomicInteger maxEndTime = new AtomicInteger();
+        final AtomicInteger maxNumFields = new AtomicInteger();
+    }
+
+    private class Search {
+        final Team[] teams;
+        final AvailabilityTable availability;
+        final int[] teamSlots;
+        final int[] numAssigned;
+        final int[] startTimes;
+        final int[] latestStartTimes;
+        final int[] earliestStartTimes;
+        /**
+         * Latest start time and maximum number of concurrent matches of the matches up to an ordinal,
+         * updated whenever a match is scheduled.
+         */
+        final int[] prefixMaxEndTime;
+        final int[] prefixMaxNumFields;
+        /**
+         * Number of scheduled matches per start time, offset by {@link #slotOffset}.
+         */
+        int[] slotOccupancy;
+        final int slotOffset;
+        /**
+         * Real start time and winning team of the played matches, {@link #UNASSIGNED} for the other matches.
+         */
+        final int[] playedStartTimes;
+        final int[] playedWinners;
+        final int lastPlayed;
+
+        Incumbent incumbent;
+        int numSchedules;
+        int maxEndTime;
+        int maxNumFields;
+        long numPruned;
+        long numNodes;
+        boolean stopped;
+
+        Search(Map<Match, List<Team>> teamMapping) {
+            this(teamMapping, List.of());
+        }
+
+        Search(Map<Match, List<Team>> teamMapping, Collection<MatchResult> results) {
+            int n = bracket.size();
+            teamSlots = new int[n * 2];
+            numAssigned = new int[n];
+            startTimes = new int[n];
+            latestStartTimes = new int[n];
+            earliestStartTimes = new int[n];
+            prefixMaxEndTime = new int[n];
+            prefixMaxNumFields = new int[n];
+            // every match starts within a day before or after its predecessors
+            slotOffset = initialStart - 24 * (n + 1);
+            slotOccupancy = new int[48 * (n + 1) + 1];
+            Arrays.fill(teamSlots, UNASSIGNED);
+
+            List<Team> teamList = new ArrayList<>();
+            teamMapping.forEach((match, matchTeams) -> {
+                int ordinal = bracket.ordinal(match);
+                for (var team : matchTeams) {
+                    push(ordinal, teamList.size());
+                    teamList.add(team);
+                }
+            });
+            teams = teamList.toArray(new Team[0]);
+            if (teams.length > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many teams: " + teams.length);
+            }
+
+            availability = new AvailabilityTable(teams);
+
+            playedStartTimes = new int[n];
+            playedWinners = new int[n];
+            Arrays.fill(playedStartTimes, UNASSIGNED);
+            Arrays.fill(playedWinners, UNASSIGNED);
+            int last = UNASSIGNED;
+            for (var result : results) {
+                int ordinal = ordinal(result.getMatch());
+                if (bracket.getFollowUps()[ordinal].length > 0 && bracket.getWinnerFollowUps()[ordinal] < 0) {
+                    throw new IllegalStateException("The diagram does not label the winner path of " + result.getMatch());
+                }
+                if (result.getStartTime() < slotOffset) {
+                    throw new IllegalArgumentException("Start time of " + result.getMatch() + " is too early: "
+                            + result.getStartTime());
+                }
+                // the later matches have to fit into the 16 bit start times of packed schedules and results
+                if (result.getStartTime() > Short.MAX_VALUE - 24 * (n + 1)) {
+                    throw new IllegalArgumentException("Start time of " + result.getMatch() + " is too late: "
+                            + result.getStartTime());
+                }
+                playedStartTimes[ordinal] = result.getStartTime();
+                playedWinners[ordinal] = teamIndex(result.getWinner());
+                last = Math.max(last, ordinal);
+            }
+            lastPlayed = last;
+        }
+
+        private int ordinal(String match) {
+            var ordinal = bracket.getOrdinals().get(match);
+            if (ordinal == null) {
+                throw new IllegalArgumentException("Unknown match: " + match);
+            }
+            return ordinal;
+        }
+
+        private int teamIndex(String name) {
+            for (int i = 0; i < teams.length; i++) {
+                if (teams[i].getName().equals(name)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("Unknown team: " + name);
+        }
+
+        Search(Search other) {
+            teams = other.teams;
+            availability = other.availability;
+            teamSlots = other.teamSlots.clone();
+            numAssigned = other.numAssigned.clone();
+            startTimes = other.startTimes.clone();
+            latestStartTimes = new int[startTimes.length];
+            earliestStartTimes = new int[startTimes.length];
+            prefixMaxEndTime = other.prefixMaxEndTime.clone();
+            prefixMaxNumFields = other.prefixMaxNumFields.clone();
+            slotOccupancy = other.slotOccupancy.clone();
+            slotOffset = other.slotOffset;
+            playedStartTimes = other.playedStartTimes;
+            playedWinners = other.playedWinners;
+            lastPlayed = other.lastPlayed;
+            incumbent = other.incumbent;
+        }
+
+        void run(int match) {
+            if (match == bracket.size()) {
+                numSchedules++;
+                leaf();
+                return;
+            }
+
+            schedule(match);
+            if (incumbent != null && match < bracket.size() - 1 && canPrune(match)) {
+                numPruned++;
+                // the skipped outcomes are still schedules, they just can not raise the maxima
+                numSchedules = (int) Math.min(numSchedules + numOutcomes(match), Integer.MAX_VALUE);
+                unschedule(match);
+                return;
+            }
+            int numBranches = numBranches(match);
+            for (int branch = 0; branch < numBranches && !stopped; branch++) {
+                if (!isConsistent(match, branch)) {
+                    continue;
+                }
+                apply(match, branch);
+                run(match + 1);
+                undo(match);
+            }
+            unschedule(match);
+        }
+
+        void leaf() {
+            int end = prefixMaxEndTime[startTimes.length - 1];
+            int fields = prefixMaxNumFields[startTimes.length - 1];
+            maxEndTime = Math.max(maxEndTime, end);
+            maxNumFields = Math.max(maxNumFields, fields);
+            if (incumbent != null) {
+                incumbent.maxEndTime.accumulateAndGet(end, Math::max);
+                incumbent.maxNumFields.accumulateAndGet(fields, Math::max);
+            }
+        }
+
+        /**
+         * Search the subtree starting at the given match and return the latest start time of the remaining matches
+         * together with the maximum number of concurrent matches in all slots at or after
+         * {@link #earliestRemainingStart(int)} and the number of schedules, packed with {@link #packResult(int, int, long)}.
+         * Earlier slots only hold scheduled matches and are the same for the whole subtree.
+         */
+        long runCached(int match) {
+            int n = bracket.size();
+            if (match == n) {
+                return packResult(0, 0, 1);
+            }
+
+            int threshold = earliestRemainingStart(match);
+            String key = null;
+            if (n - match >= MIN_CACHED_MATCHES && match > lastPlayed) {
+                key = cacheKey(match, threshold);
+                long cached = cache.get(key);
+                if (cached != TranspositionCache.ABSENT) {
+                    return cached;
+                }
+            }
+
+            schedule(match);
+            int endTime = startTimes[match];
+            int numFields = 0;
+            long subtreeSchedules = 0;
+            int numBranches = numBranches(match);
+            for (int branch = 0; branch < numBranches; branch++) {
+                if (!isConsistent(match, branch)) {
+                    continue;
+                }
+                apply(match, branch);
+                long result = runCached(match + 1);
+                undo(match);
+                if (numSchedulesOf(result) == 0) {
+                    // no outcome of the subtree agrees with the played matches
+                    continue;
+                }
+                endTime = Math.max(endTime, endTimeOf(result));
+                numFields = Math.max(numFields, numFieldsOf(result));
+                subtreeSchedules += numSchedulesOf(result);
+            }
+            int nextThreshold = earliestRemainingStart(match + 1);
+            numFields = Math.max(numFields, maxScheduledFields(match, threshold, nextThreshold));
+            unschedule(match);
+
+            long result = packResult(endTime, numFields, subtreeSchedules);
+            if (key != null) {
+                cache.put(key, result);
+            }
+            return result;
+        }
+
+        /**
+         * Lower bound for the start of all matches from the given ordinal on:
+         * every remaining match waits for a remaining match whose predecessors are all scheduled already.
+         */
+        int earliestRemainingStart(int match) {
+            int earliest = Integer.MAX_VALUE;
+            for (int j = match; j < startTimes.length; j++) {
+                boolean ready = true;
+                for (int predecessor : bracket.getPredecessors()[j]) {
+                    ready &= predecessor < match;
+                }
+                if (ready) {
+                    earliest = Math.min(earliest, baseTime(j) + 1);
+                }
+            }
+            return earliest;
+        }
+
+        /**
+         * Maximum number of concurrent matches in the given time range.
+         * Only valid while exactly the matches up to the given ordinal are scheduled.
+         */
+        int maxScheduledFields(int match, int fromTime, int toTime) {
+            int fields = 0;
+            for (int i = 0; i <= match; i++) {
+                if (startTimes[i] >= fromTime && startTimes[i] < toTime) {
+                    fields = Math.max(fields, slotOccupancy[startTimes[i] - slotOffset]);
+                }
+            }
+            return fields;
+        }
+
+        /**
+         * Canonical encoding of everything the subtree depends on: the availability windows of the teams
+         * in the remaining matches (unordered per match), the start times of their scheduled predecessors
+         * and the occupied slots that remaining matches can still share.
+         */
+        String cacheKey(int match, int threshold) {
+            int n = startTimes.length;
+            StringBuilder key = new StringBuilder(4 * n);
+            key.append((char) match);
+            for (int j = match; j < n; j++) {
+                char a = numAssigned[j] > 0 ? windowCode(teams[teamSlots[j * 2]]) : 0;
+                char b = numAssigned[j] > 1 ? windowCode(teams[teamSlots[j * 2 + 1]]) : 0;
+                key.append((char) Math.min(a, b)).append((char) Math.max(a, b));
+                for (int predecessor : bracket.getPredecessors()[j]) {
+                    if (predecessor < match) {
+                        key.append((char) startTimes[predecessor]);
+                    }
+                }
+            }
+            int lastSlot = threshold - 1;
+            while (true) {
+                int nextSlot = Integer.MAX_VALUE;
+                for (int i = 0; i < match; i++) {
+                    if (startTimes[i] > lastSlot && startTimes[i] < nextSlot) {
+                        nextSlot = startTimes[i];
+                    }
+                }
+                if (nextSlot == Integer.MAX_VALUE) {
+                    break;
+                }
+                key.append((char) nextSlot).append((char) maxScheduledFields(match - 1, nextSlot, nextSlot + 1));
+                lastSlot = nextSlot;
+            }
+            return key.toString();
+        }
+
+        /**
+         * Check if the subtree below the given (already scheduled) match can be skipped.
+         * The latest possible start of every remaining match follows from the latest start of its
+         * predecessors and the availability of its teams. Teams that are not yet known are replaced
+         * by the worst waiting time of all teams in this tournament.
+         */
+        boolean canPrune(int match) {
+            int n = startTimes.length;
+            int end = prefixMaxEndTime[match];
+            int earliest = Integer.MAX_VALUE;
+            for (int j = match + 1; j < n; j++) {
+                int[] predecessors = bracket.getPredecessors()[j];
+                int latestBase = initialStart;
+                int earliestBase = initialStart;
+                if (predecessors.length > 0) {
+                    latestBase = Integer.MIN_VALUE;
+                    earliestBase = Integer.MIN_VALUE;
+                    for (int predecessor : predecessors) {
+                        boolean scheduled = predecessor <= match;
+                        latestBase = Math.max(latestBase, scheduled ? startTimes[predecessor] : latestStartTimes[predecessor]);
+                        earliestBase = Math.max(earliestBase, scheduled ? startTimes[predecessor] : earliestStartTimes[predecessor]);
+                    }
+                }
+                latestStartTimes[j] = latestStart(j, latestBase + 1);
+                earliestStartTimes[j] = earliestBase + 1;
+                end = Math.max(end, latestStartTimes[j]);
+                earliest = Math.min(earliest, earliestStartTimes[j]);
+            }
+            if (end > incumbent.maxEndTime.get()) {
+                return false;
+            }
+            return maxNumFieldsBound(match, earliest) <= incumbent.maxNumFields.get();
+        }
+
+        int latestStart(int match, int baseTime) {
+            if (numAssigned[match] == 2) {
+                return nextAvailableStart(teamSlots[match * 2], teamSlots[match * 2 + 1], baseTime);
+            }
+            return availability.worstNextStart(baseTime);
+        }
+
+        /**
+         * Scheduled slots before the earliest possible start of the remaining matches are final,
+         * later slots can at most receive as many matches as the remaining graph is wide.
+         */
+        int maxNumFieldsBound(int match, int earliestRemainingStart) {
+            int openSlotFields = maxScheduledFields(match, earliestRemainingStart, Integer.MAX_VALUE);
+            return Math.max(prefixMaxNumFields[match], openSlotFields + bracket.getSuffixWidth()[match + 1]);
+        }
+
+        void schedule(int match) {
+            numNodes++;
+            int teamA = teamSlots[match * 2];
+            int teamB = teamSlots[match * 2 + 1];
+            int startTime = playedStartTimes[match] != UNASSIGNED
+                    ? playedStartTimes[match]
+                    : nextAvailableStart(teamA, teamB, baseTime(match) + 1);
+            if (maxFields > 0 && playedStartTimes[match] == UNASSIGNED) {
+                while (occupancy(startTime) >= maxFields) {
+                    startTime = Math.max(startTime + 1, nextAvailableStart(teamA, teamB, startTime + 1));
+                }
+            }
+            startTimes[match] = startTime;
+            int occupancy = occupy(startTime);
+            prefixMaxEndTime[match] = match == 0 ? startTime : Math.max(prefixMaxEndTime[match - 1], startTime);
+            prefixMaxNumFields[match] = match == 0 ? occupancy : Math.max(prefixMaxNumFields[match - 1], occupancy);
+        }
+
+        int occupancy(int time) {
+            int slot = time - slotOffset;
+            return slot < slotOccupancy.length ? slotOccupancy[slot] : 0;
+        }
+
+        /**
+         * Add a match to the slot, the counters grow if matches are delayed beyond the initial horizon.
+         */
+        int occupy(int time) {
+            int slot = time - slotOffset;
+            if (slot >= slotOccupancy.length) {
+                slotOccupancy = Arrays.copyOf(slotOccupancy, Math.max(slot + 1, slotOccupancy.length * 2));
+            }
+            return ++slotOccupancy[slot];
+        }
+
+        void unschedule(int match) {
+            slotOccupancy[startTimes[match] - slotOffset]--;
+        }
+
+        int numBranches(int match) {
+            return bracket.getFollowUps()[match].length == 0 ? 1 : 2;
+        }
+
+        /**
+         * Number of outcomes of the subtree that branches at the given match, saturating at
+         * {@link Integer#MAX_VALUE}. Only exact without played matches in the subtree, like bounded search.
+         */
+        long numOutcomes(int match) {
+            long numOutcomes = 1;
+            for (int j = match; j < bracket.size() && numOutcomes < Integer.MAX_VALUE; j++) {
+                numOutcomes *= numBranches(j);
+            }
+            return Math.min(numOutcomes, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Whether the branch agrees with the winner of a played match. The winner is the team that
+         * {@link #apply(int, int)} moves on to the winner's follow-up.
+         */
+        boolean isConsistent(int match, int branch) {
+            int winner = playedWinners[match];
+            if (winner == UNASSIGNED) {
+                return true;
+            }
+            int teamA = teamSlots[match * 2];
+            int teamB = teamSlots[match * 2 + 1];
+            if (bracket.getFollowUps()[match].length == 0) {
+                return winner == teamA || winner == teamB;
+            }
+            return winner == (branch == bracket.getWinnerFollowUps()[match] ? teamA : teamB);
+        }
+
+        /**
+         * Branch 0: the first team advances to the first follow-up, branch 1: the second team does.
+         * With two follow-ups the other team moves on to the second follow-up.
+         */
+        void apply(int match, int branch) {
+            int[] followUps = bracket.getFollowUps()[match];
+            if (followUps.length == 0) {
+                return;
+            }
+            int teamA = teamSlots[match * 2];
+            int teamB = teamSlots[match * 2 + 1];
+            push(followUps[0], branch == 0 ? teamA : teamB);
+            if (followUps.length == 2) {
+                push(followUps[1], branch == 0 ? teamB : teamA);
+            }
+        }
+
+        void undo(int match) {
+            for (int followUp : bracket.getFollowUps()[match]) {
+                pop(followUp);
+            }
+        }
+
+        int baseTime(int match) {
+            int[] predecessors = bracket.getPredecessors()[match];
+            if (predecessors.length == 0) {
+                return initialStart;
+            }
+            int base = Integer.MIN_VALUE;
+            for (int predecessor : predecessors) {
+                base = Math.max(base, startTimes[predecessor]);
+            }
+            return base;
+        }
+
+        int nextAvailableStart(int teamA, int teamB, int baseTime) {
+            return availability.nextCommonStart(teamA, teamB, baseTime);
+        }
+
+        void push(int match, int team) {
+            teamSlots[match * 2 + numAssigned[match]++] = team;
+        }
+
+        void pop(int match) {
+            teamSlots[match * 2 + --numAssigned[match]] = UNASSIGNED;
+        }
+
+        ScheduleSummary toSummary() {
+            return new ScheduleSummary(numSchedules, maxEndTime, maxNumFields, numPruned, numNodes);
+        }
+
+        Schedule toSchedule() {
+            byte[] teamIds = new byte[teamSlots.length];
+            short[] packedStartTimes = new short[startTimes.length];
+            for (int i = 0; i < startTimes.length; i++) {
+                teamIds[i * 2] = (byte) teamSlots[i * 2];
+                teamIds[i * 2 + 1] = (byte) teamSlots[i * 2 + 1];
+                if (startTimes[i] > Short.MAX_VALUE) {
+                    throw new IllegalStateException("Start time does not fit into a packed schedule: " + startTimes[i]);
+                }
+                packedStartTimes[i] = (short) startTimes[i];
+            }
+            int last = startTimes.length - 1;
+            return new Schedule(new PackedSchedule(bracket, teams, teamIds, packedStartTimes,
+                    prefixMaxEndTime[last], prefixMaxNumFields[last]));
+        }
+    }
+
+    @RequiredArgsConstructor
+    private class SearchTask extends RecursiveTask<ScheduleSummary> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Search search;
+        private final int match;
+        private final int forkDepth;
+
+        @Override
+        protected ScheduleSummary compute() {
+            int next = match;
+            while (next < bracket.size() && search.numBranches(next) == 1) {
+                search.schedule(next);
+                next++;
+            }
+            if (forkDepth <= 0 || next == bracket.size()) {
+                search.run(next);
+                return search.toSummary();
+            }
+
+            search.schedule(next);
+            List<SearchTask> subTasks = new ArrayList<>(2);
+            for (int branch = 0; branch < search.numBranches(next); branch++) {
+                var subSearch = new Search(search);
+                subSearch.apply(next, branch);
+                subTasks.add(new SearchTask(subSearch, next + 1, forkDepth - 1));
+            }
+            return invokeAll(subTasks).stream()
+                    .map(SearchTask::join)
+                    .reduce(ScheduleSummary::merge)
+                    .orElseThrow();
+        }
+    }
+}
@@ -1,27 +1,45 @@
 package edu.robocup.ssl;
 
-import lombok.Getter;
 import lombok.Setter;
+import lombok.Value;
 import org.apache.commons.math3.stat.Frequency;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+/**
+ * Aggregates the results of all tournaments. Every thread records into its own stripe without contention,
+ * the stripes are only merged when statistics are read. The stripes of threads that ended are folded into one
+ * by {@link #foldEndedStripes()}.
+ */
 public class Evaluator {
+    private static final double Z_95 = 1.959964;
     private final long start = System.nanoTime();
     private long lastStart = start;
-    private int lastNumTournaments;
+    private long lastNumTournaments;
 
-    @Getter
-    private final AtomicInteger numTournaments = new AtomicInteger();
-    @Getter
-    private final AtomicInteger overallMaxEndTime = new AtomicInteger();
-    @Getter
-    private final AtomicInteger overallMaxNumFields = new AtomicInteger();
+    /**
+     * Replaced as a whole, so readers always see every result exactly once while stripes are folded.
+     */
+    private volatile List<Stripe> stripes = List.of();
+    private final ThreadLocal<Stripe> localStripe = ThreadLocal.withInitial(this::newStripe);
+    /**
+     * Receives the merged aggregates, only written while holding the lock of the evaluator.
+     */
+    private Stripe mergedStripe;
 
     @Setter
     private boolean validate = false;
@@ -29,58 +47,307 @@ public class Evaluator {
     private boolean findMaxEndTime = true;
     @Setter
     private boolean findMaxNumFields = false;
-
-    private final Frequency maxEndTimeFrequency = new Frequency();
-    private final Frequency maxNumFieldsFrequency = new Frequency();
+    @Setter
+    private TranspositionCache transpositionCache;
+    /**
+     * Share of the population in each stratum when tournaments are sampled, null when all are evaluated.
+     */
+    private double[] stratumWeights;
 
 
     public void process(List<Schedule> allSchedules) {
-        numTournaments.incrementAndGet();
+        process(allSchedules::forEach);
+    }
+
+    /**
+     * Reduce the schedules of a single tournament while they are produced, without materializing them.
+     *
+     * @param scheduleSource receives the consumer that all schedules of the tournament must be passed to
+     */
+    public void process(ScheduleSource scheduleSource) {
+        process(scheduleSource, 1);
+    }
+
+    public void process(ScheduleSource scheduleSource, int weight) {
+        process(summarize(scheduleSource), weight);
+    }
+
+    /**
+     * Reduce the schedules of a single tournament without recording the result.
+     */
+    public ScheduleSummary summarize(ScheduleSource scheduleSource) {
+        var accumulator = new ScheduleSummary.Accumulator(findMaxEndTime, findMaxNumFields);
+        scheduleSource.forEachSchedule(validate ? accumulator.andThen(this::validateSchedule) : accumulator);
+        return accumulator.toSummary();
+    }
+
+    public void process(ScheduleSummary summary) {
+        process(summary, 1);
+    }
+
+    /**
+     * Record the result of a tournament that represents {@code weight} equivalent tournaments.
+     */
+    public void process(ScheduleSummary summary, int weight) {
+        var stripe = localStripe.get();
+        stripe.numTournaments += weight;
+        if (summary.getNumPruned() > 0) {
+            stripe.numPrunedNodes += summary.getNumPruned();
+        }
 
         if (findMaxNumFields) {
-            updateMaxNumFields(allSchedules);
+            stripe.maxNumFieldsCounts = increment(stripe.maxNumFieldsCounts, summary.getMaxNumFields(), weight);
         }
 
         if (findMaxEndTime) {
-            updateMaxEndTime(allSchedules);
+            stripe.maxEndTimeCounts = increment(stripe.maxEndTimeCounts, summary.getMaxEndTime(), weight);
+        }
+    }
+
+    /**
+     * Estimate the results of a population from stratified samples, see {@link #processSample(ScheduleSummary, int)}.
+     * Must be called before any result is recorded.
+     */
+    public void setStratumWeights(double[] stratumWeights) {
+        if (!stripes.isEmpty()) {
+            throw new IllegalStateException("Evaluator has already recorded results");
+        }
+        this.stratumWeights = stratumWeights.clone();
+    }
+
+    /**
+     * Record the result of a tournament drawn from the given stratum.
+     */
+    public void processSample(ScheduleSummary summary, int stratum) {
+        process(summary, 1);
+        var stripe = localStripe.get();
+        var counts = stripe.stratumEndTimeCounts.get(stratum);
+        stripe.stratumEndTimeCounts.lazySet(stratum, increment(counts, summary.getMaxEndTime(), 1));
+    }
+
+    /**
+     * Stratified estimate of the mean maximum end time with its 95% confidence interval.
+     */
+    public Estimate getMaxEndTimeMeanEstimate() {
+        var counts = mergeStrata();
+        double mean = 0;
+        double variance = 0;
+        for (int h = 0; h < counts.length; h++) {
+            long n = sum(counts[h]);
+            if (n == 0) {
+                continue;
+            }
+            double stratumMean = 0;
+            for (int value = 0; value < counts[h].length; value++) {
+                stratumMean += (double) value * counts[h][value] / n;
+            }
+            double squares = 0;
+            for (int value = 0; value < counts[h].length; value++) {
+                squares += counts[h][value] * (value - stratumMean) * (value - stratumMean);
+            }
+            mean += stratumWeights[h] * stratumMean;
+            if (n > 1) {
+                variance += stratumWeights[h] * stratumWeights[h] * squares / (n - 1) / n;
+            }
         }
+        return new Estimate(mean, Z_95 * Math.sqrt(variance));
+    }
 
-        if (validate) {
-            allSchedules.forEach(this::validateSchedule);
+    /**
+     * Stratified estimate of the share of tournaments per maximum end time with 95% confidence intervals.
+     */
+    public Map<Integer, Estimate> getMaxEndTimeDistributionEstimate() {
+        var counts = mergeStrata();
+        Map<Integer, Estimate> estimates = new TreeMap<>();
+        int maxValue = getOverallMaxEndTime();
+        for (int value = 0; value <= maxValue; value++) {
+            double share = 0;
+            double variance = 0;
+            boolean seen = false;
+            for (int h = 0; h < counts.length; h++) {
+                long n = sum(counts[h]);
+                if (n == 0) {
+                    continue;
+                }
+                long count = value < counts[h].length ? counts[h][value] : 0;
+                seen |= count > 0;
+                double p = (double) count / n;
+                share += stratumWeights[h] * p;
+                if (n > 1) {
+                    variance += stratumWeights[h] * stratumWeights[h] * p * (1 - p) / (n - 1);
+                }
+            }
+            if (seen) {
+                estimates.put(value, new Estimate(share, Z_95 * Math.sqrt(variance)));
+            }
         }
+        return estimates;
+    }
+
+    private long[][] mergeStrata() {
+        long[][] counts = new long[stratumWeights.length][];
+        for (int h = 0; h < counts.length; h++) {
+            counts[h] = new long[0];
+            for (var stripe : stripes) {
+                var stripeCounts = stripe.stratumEndTimeCounts.get(h);
+                if (stripeCounts.length() > counts[h].length) {
+                    counts[h] = Arrays.copyOf(counts[h], stripeCounts.length());
+                }
+                for (int value = 0; value < stripeCounts.length(); value++) {
+                    counts[h][value] += stripeCounts.get(value);
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static long sum(long[] counts) {
+        long sum = 0;
+        for (long count : counts) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    public long getNumTournaments() {
+        long numTournaments = 0;
+        for (var stripe : stripes) {
+            numTournaments += stripe.numTournaments;
+        }
+        return numTournaments;
+    }
+
+    public long getNumPrunedNodes() {
+        long numPrunedNodes = 0;
+        for (var stripe : stripes) {
+            numPrunedNodes += stripe.numPrunedNodes;
+        }
+        return numPrunedNodes;
+    }
+
+    public int getOverallMaxEndTime() {
+        return maxValue(stripe -> stripe.maxEndTimeCounts);
+    }
+
+    public int getOverallMaxNumFields() {
+        return maxValue(stripe -> stripe.maxNumFieldsCounts);
+    }
+
+    public Frequency getMaxEndTimeFrequency() {
+        return merge(stripe -> stripe.maxEndTimeCounts);
+    }
+
+    public Frequency getMaxNumFieldsFrequency() {
+        return merge(stripe -> stripe.maxNumFieldsCounts);
     }
 
     public void printStatistics() {
-        int n = numTournaments.get();
+        printStatistics("");
+    }
+
+    public void printStatistics(String suffix) {
+        long n = getNumTournaments();
         long now = System.nanoTime();
         long totalElapsed = (long) ((now - start) / 1e6);
         double elapsed = ((now - lastStart) / 1e9);
-        int tournamentsProcessed = n - lastNumTournaments;
+        long tournamentsProcessed = n - lastNumTournaments;
         double speed = tournamentsProcessed / elapsed;
-        System.out.printf("%6d: %d (%4.1f/s) | %d%n",
+        System.out.printf("%6d: %d (%4.1f/s) | %d%s%s%n",
                 totalElapsed,
                 n,
                 speed,
-                overallMaxEndTime.get());
+                getOverallMaxEndTime(),
+                cacheStatistics(),
+                suffix);
         lastStart = now;
         lastNumTournaments = n;
     }
 
-    private void updateMaxNumFields(List<Schedule> allSchedules) {
-        var maxNumFields = allSchedules.stream()
-                .mapToInt(Schedule::findMaxNumFields)
-                .max()
-                .orElse(0);
-        maxNumFieldsFrequency.addValue(maxNumFields);
-        overallMaxNumFields.accumulateAndGet(maxNumFields, Math::max);
+    private String cacheStatistics() {
+        if (transpositionCache == null) {
+            return "";
+        }
+        long hits = transpositionCache.getHits();
+        long misses = transpositionCache.getMisses();
+        return String.format(" | cache: %d hits, %d misses (%4.1f%%), %d entries, %d evictions",
+                hits,
+                misses,
+                100.0 * hits / Math.max(1, hits + misses),
+                transpositionCache.size(),
+                transpositionCache.getEvictions());
+    }
+
+    private synchronized Stripe newStripe() {
+        return newStripe(Thread.currentThread());
+    }
+
+    private synchronized Stripe newStripe(Thread owner) {
+        var stripe = new Stripe(stratumWeights == null ? 0 : stratumWeights.length, owner);
+        var newStripes = new ArrayList<>(stripes);
+        newStripes.add(stripe);
+        stripes = List.copyOf(newStripes);
+        return stripe;
+    }
+
+    /**
+     * Fold the results of threads that ended into a single stripe. Pools that are replaced, like the fork/join
+     * threads that time out, would otherwise leave one stripe per thread behind.
+     */
+    public synchronized void foldEndedStripes() {
+        var folded = new Stripe(stratumWeights == null ? 0 : stratumWeights.length, null);
+        List<Stripe> newStripes = new ArrayList<>();
+        newStripes.add(folded);
+        for (var stripe : stripes) {
+            if (stripe != mergedStripe && (stripe.owner == null || !stripe.owner.isAlive())) {
+                folded.add(stripe);
+            } else {
+                newStripes.add(stripe);
+            }
+        }
+        stripes = List.copyOf(newStripes);
+    }
+
+    /**
+     * Only the owning thread writes to a stripe, so a plain read followed by an ordered write is sufficient.
+     * The array is replaced by a larger copy if the value does not fit.
+     */
+    private static AtomicLongArray increment(AtomicLongArray counts, int value, long weight) {
+        if (value >= counts.length()) {
+            var grown = new AtomicLongArray(Math.max(value + 1, counts.length() * 2));
+            for (int i = 0; i < counts.length(); i++) {
+                grown.lazySet(i, counts.get(i));
+            }
+            counts = grown;
+        }
+        counts.lazySet(value, counts.get(value) + weight);
+        return counts;
+    }
+
+    private Frequency merge(Function<Stripe, AtomicLongArray> histogram) {
+        var frequency = new Frequency();
+        for (var stripe : stripes) {
+            var counts = histogram.apply(stripe);
+            for (int value = 0; value < counts.length(); value++) {
+                long count = counts.get(value);
+                if (count > 0) {
+                    frequency.incrementValue((long) value, count);
+                }
+            }
+        }
+        return frequency;
     }
 
-    private void updateMaxEndTime(List<Schedule> allSchedules) {
-        var maxEndTime = allSchedules.stream()
-                .mapToInt(Schedule::findMaxEndTime).max()
-                .orElse(0);
-        maxEndTimeFrequency.addValue(maxEndTime);
-        overallMaxEndTime.accumulateAndGet(maxEndTime, Math::max);
+    private int maxValue(Function<Stripe, AtomicLongArray> histogram) {
+        int max = 0;
+        for (var stripe : stripes) {
+            var counts = histogram.apply(stripe);
+            for (int value = counts.length() - 1; value > max; value--) {
+                if (counts.get(value) > 0) {
+                    max = value;
+                }
+            }
+        }
+        return max;
     }
 
     private void validateSchedule(Schedule schedule) {
@@ -95,11 +362,137 @@ public class Evaluator {
         });
     }
 
+    /**
+     * Write the aggregated results, e.g. for a checkpoint. Callers must make sure no results are recorded meanwhile.
+     */
+    public void writeAggregates(DataOutput out) throws IOException {
+        out.writeLong(getNumTournaments());
+        out.writeLong(getNumPrunedNodes());
+        writeFrequency(out, getMaxEndTimeFrequency());
+        writeFrequency(out, getMaxNumFieldsFrequency());
+    }
+
+    /**
+     * Restore the aggregated results written by {@link #writeAggregates(DataOutput)}
+     * into an evaluator that has not recorded any results yet.
+     */
+    public void readAggregates(DataInput in) throws IOException {
+        if (!stripes.isEmpty()) {
+            throw new IllegalStateException("Evaluator has already recorded results");
+        }
+        mergeAggregates(in);
+        lastNumTournaments = getNumTournaments();
+    }
+
+    /**
+     * Add the aggregated results written by {@link #writeAggregates(DataOutput)}, e.g. by another process.
+     * Nothing is added if the input is incomplete.
+     */
+    public synchronized void mergeAggregates(DataInput in) throws IOException {
+        long numTournaments = in.readLong();
+        long numPrunedNodes = in.readLong();
+        var maxEndTimeCounts = readFrequency(in);
+        var maxNumFieldsCounts = readFrequency(in);
+        if (mergedStripe == null) {
+            mergedStripe = newStripe(null);
+        }
+        mergedStripe.numTournaments += numTournaments;
+        mergedStripe.numPrunedNodes += numPrunedNodes;
+        mergedStripe.maxEndTimeCounts = add(mergedStripe.maxEndTimeCounts, maxEndTimeCounts);
+        mergedStripe.maxNumFieldsCounts = add(mergedStripe.maxNumFieldsCounts, maxNumFieldsCounts);
+    }
+
+    private static AtomicLongArray add(AtomicLongArray counts, AtomicLongArray other) {
+        for (int value = 0; value < other.length(); value++) {
+            if (other.get(value) > 0) {
+                counts = increment(counts, value, other.get(value));
+            }
+        }
+        return counts;
+    }
+
+    private static void writeFrequency(DataOutput out, Frequency frequency) throws IOException {
+        out.writeInt(frequency.getUniqueCount());
+        var values = frequency.valuesIterator();
+        while (values.hasNext()) {
+            var value = values.next();
+            out.writeInt(((Long) value).intValue());
+            out.writeLong(frequency.getCount(value));
+        }
+    }
+
+    private static AtomicLongArray readFrequency(DataInput in) throws IOException {
+        var counts = new AtomicLongArray(0);
+        int numValues = in.readInt();
+        for (int i = 0; i < numValues; i++) {
+            counts = increment(counts, in.readInt(), in.readLong());
+        }
+        return counts;
+    }
+
+    @FunctionalInterface
+    public interface ScheduleSource {
+        void forEachSchedule(Consumer<Schedule> consumer);
+    }
+
     public void summary() {
-        System.out.println("Num tournaments: " + numTournaments.get());
-        System.out.println("Max end time: " + overallMaxEndTime.get());
-        System.out.println("Max fields: " + overallMaxNumFields.get());
-        System.out.println("Frequency max end time:\n" + maxEndTimeFrequency);
-        System.out.println("Frequency max fields:\n" + maxNumFieldsFrequency);
+        System.out.println("Num tournaments: " + getNumTournaments());
+        System.out.println("Max end time: " + getOverallMaxEndTime());
+        System.out.println("Max fields: " + getOverallMaxNumFields());
+        System.out.println("Pruned nodes: " + getNumPrunedNodes());
+        if (transpositionCache != null) {
+            System.out.println("Transposition cache:" + cacheStatistics().substring(" | cache:".length()));
+        }
+        System.out.println("Frequency max end time:\n" + getMaxEndTimeFrequency());
+        System.out.println("Frequency max fields:\n" + getMaxNumFieldsFrequency());
+        if (stratumWeights != null) {
+            var mean = getMaxEndTimeMeanEstimate();
+            System.out.printf("Estimated mean max end time: %.2f +/- %.2f (95%% confidence)%n",
+                    mean.getValue(), mean.getHalfWidth());
+            System.out.println("Estimated share max end time:\nValue \t Est. Pct. \t +/- 95% CI");
+            getMaxEndTimeDistributionEstimate().forEach((value, estimate) -> System.out.printf("%d\t%6.2f%%\t%6.2f%%%n",
+                    value, 100 * estimate.getValue(), 100 * estimate.getHalfWidth()));
+        }
+    }
+
+    /**
+     * Estimated value with the half width of its confidence interval.
+     */
+    @Value
+    public static class Estimate {
+        double value;
+        double halfWidth;
+    }
+
+    /**
+     * Results recorded by a single thread. Fields are only written by the owning thread,
+     * volatile makes them visible to the threads merging the stripes.
+     * Stripes without an owner receive merged or folded results while holding the lock of the evaluator.
+     */
+    private static class Stripe {
+        final Thread owner;
+        volatile long numTournaments;
+        volatile long numPrunedNodes;
+        volatile AtomicLongArray maxEndTimeCounts = new AtomicLongArray(0);
+        volatile AtomicLongArray maxNumFieldsCounts = new AtomicLongArray(0);
+        final AtomicReferenceArray<AtomicLongArray> stratumEndTimeCounts;
+
+        Stripe(int numStrata, Thread owner) {
+            this.owner = owner;
+            stratumEndTimeCounts = new AtomicReferenceArray<>(numStrata);
+            for (int i = 0; i < numStrata; i++) {
+                stratumEndTimeCounts.set(i, new AtomicLongArray(0));
+            }
+        }
+
+        void add(Stripe other) {
+            numTournaments += other.numTournaments;
+            numPrunedNodes += other.numPrunedNodes;
+            maxEndTimeCounts = Evaluator.add(maxEndTimeCounts, other.maxEndTimeCounts);
+            maxNumFieldsCounts = Evaluator.add(maxNumFieldsCounts, other.maxNumFieldsCounts);
+            for (int i = 0; i < stratumEndTimeCounts.length(); i++) {
+                stratumEndTimeCounts.set(i, Evaluator.add(stratumEndTimeCounts.get(i), other.stratumEndTimeCounts.get(i)));
+            }
+        }
     }
 }
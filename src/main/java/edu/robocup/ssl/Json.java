@@ -0,0 +1,259 @@
+package edu.robocup.ssl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reader and writer for the line protocol of the {@link PlanningServer}.
+ * Objects become {@link Map}s, arrays {@link List}s, numbers {@link Long}s or {@link Double}s.
+ */
+public final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the text is not a single JSON value
+     */
+    public static Object parse(String text) {
+        var parser = new Parser(text);
+        var value = parser.value();
+        parser.skipWhitespace();
+        if (parser.position != text.length()) {
+            throw parser.error("Unexpected trailing characters");
+        }
+        return value;
+    }
+
+    public static String write(Object value) {
+        var text = new StringBuilder();
+        write(text, value);
+        return text.toString();
+    }
+
+    private static void write(StringBuilder text, Object value) {
+        if (value == null) {
+            text.append("null");
+        } else if (value instanceof String) {
+            writeString(text, (String) value);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            text.append(value);
+        } else if (value instanceof Map) {
+            text.append('{');
+            boolean first = true;
+            for (var entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    text.append(',');
+                }
+                first = false;
+                writeString(text, String.valueOf(entry.getKey()));
+                text.append(':');
+                write(text, entry.getValue());
+            }
+            text.append('}');
+        } else if (value instanceof Iterable) {
+            text.append('[');
+            boolean first = true;
+            for (var element : (Iterable<?>) value) {
+                if (!first) {
+                    text.append(',');
+                }
+                first = false;
+                write(text, element);
+            }
+            text.append(']');
+        } else {
+            throw new IllegalArgumentException("Not a JSON value: " + value.getClass());
+        }
+    }
+
+    private static void writeString(StringBuilder text, String value) {
+        text.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                text.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                text.append(String.format("\\u%04x", (int) c));
+            } else {
+                text.append(c);
+            }
+        }
+        text.append('"');
+    }
+
+    private static class Parser {
+        final String text;
+        int position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Object value() {
+            skipWhitespace();
+            if (position == text.length()) {
+                throw error("Unexpected end");
+            }
+            char c = text.charAt(position);
+            switch (c) {
+                case '{':
+                    return object();
+                case '[':
+                    return array();
+                case '"':
+                    return string();
+                case 't':
+                    return literal("true", Boolean.TRUE);
+                case 'f':
+                    return literal("false", Boolean.FALSE);
+                case 'n':
+                    return literal("null", null);
+                default:
+                    return number();
+            }
+        }
+
+        Map<String, Object> object() {
+            Map<String, Object> object = new LinkedHashMap<>();
+            position++;
+            skipWhitespace();
+            if (peek() == '}') {
+                position++;
+                return object;
+            }
+            while (true) {
+                skipWhitespace();
+                if (peek() != '"') {
+                    throw error("Expected a key");
+                }
+                var key = string();
+                skipWhitespace();
+                expect(':');
+                object.put(key, value());
+                skipWhitespace();
+                if (peek() == '}') {
+                    position++;
+                    return object;
+                }
+                expect(',');
+            }
+        }
+
+        List<Object> array() {
+            List<Object> array = new ArrayList<>();
+            position++;
+            skipWhitespace();
+            if (peek() == ']') {
+                position++;
+                return array;
+            }
+            while (true) {
+                array.add(value());
+                skipWhitespace();
+                if (peek() == ']') {
+                    position++;
+                    return array;
+                }
+                expect(',');
+            }
+        }
+
+        String string() {
+            var value = new StringBuilder();
+            position++;
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw error("Incomplete escape");
+                        }
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        position += 4;
+                        break;
+                    default:
+                        value.append(escaped);
+                }
+            }
+        }
+
+        Object number() {
+            int start = position;
+            while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+                position++;
+            }
+            var number = text.substring(start, position);
+            try {
+                if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+                    return Long.parseLong(number);
+                }
+                return Double.parseDouble(number);
+            } catch (NumberFormatException e) {
+                position = start;
+                throw error("Unexpected value");
+            }
+        }
+
+        Object literal(String literal, Object value) {
+            if (!text.startsWith(literal, position)) {
+                throw error("Unexpected value");
+            }
+            position += literal.length();
+            return value;
+        }
+
+        void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        char peek() {
+            return position < text.length() ? text.charAt(position) : 0;
+        }
+
+        char next() {
+            if (position == text.length()) {
+                throw error("Unexpected end");
+            }
+            return text.charAt(position++);
+        }
+
+        void expect(char c) {
+            if (peek() != c) {
+                throw error("Expected '" + c + "'");
+            }
+            position++;
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package edu.robocup.ssl;
+
+import lombok.SneakyThrows;
+import picocli.CommandLine;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Replans the remaining matches of a running tournament from the results of the played ones.
+ * Results are lines of {@code match,startTime,winner}, read from a file and then from standard input.
+ */
+@CommandLine.Command(name = "replan")
+public class LivePlanner implements Runnable {
+
+    @CommandLine.Option(names = {"-t", "--teamsInputFile"})
+    private Path teamsInputFile = Paths.get("input.csv");
+
+    @CommandLine.Option(names = {"-d", "--tournamentDiagramFile"})
+    private Path tournamentDiagramFile = Paths.get("DD8.puml");
+
+    @CommandLine.Option(names = {"-s", "--initialStart"})
+    private int initialStart = 35;
+
+    @CommandLine.Option(names = {"-a", "--teamIds"})
+    private List<Integer> teamIds = List.of(0, 1, 2, 3, 4, 5, 6, 7);
+
+    @CommandLine.Option(names = {"-c", "--cacheSize"},
+            description = "Maximum number of cached outcome subtrees kept between updates, 0 disables the cache")
+    private int cacheSize = 1 << 20;
+
+    @CommandLine.Option(names = {"--fields"},
+            description = "Number of available fields, matches wait for a free field. 0 for unlimited fields")
+    private int fields = 0;
+
+    @CommandLine.Option(names = {"-r", "--results"},
+            description = "File with the results of played matches, one match,startTime,winner per line")
+    private Path resultsFile;
+
+    @CommandLine.Option(names = {"-i", "--interactive"},
+            description = "Read further results from standard input, an empty line ends the input")
+    private boolean interactive = false;
+
+    @CommandLine.Option(names = {"-n", "--numSchedulesToPrint"})
+    private int numSchedulesToPrint = 0;
+
+    @SneakyThrows
+    @Override
+    public void run() {
+        var teams = Team.loadTeams(teamsInputFile);
+        var scheduler = Scheduler.load(tournamentDiagramFile, initialStart);
+        scheduler.setMaxFields(fields);
+        scheduler.setTranspositionCache(cacheSize > 0 ? new TranspositionCache(cacheSize) : null);
+
+        var teamAssignment = new Tournament(scheduler, teams).calcTeamAssignment(teamIds);
+        long start = System.nanoTime();
+        var replanner = new Replanner(scheduler, teamAssignment);
+        print("Initial", replanner.getSummary(), start);
+
+        if (resultsFile != null) {
+            for (var line : Files.readAllLines(resultsFile)) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    update(replanner, MatchResult.parse(line));
+                }
+            }
+        }
+        if (interactive) {
+            var in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null && !line.isBlank()) {
+                try {
+                    update(replanner, MatchResult.parse(line));
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Rejected: " + e.getMessage());
+                }
+            }
+        }
+
+        for (var schedule : replanner.findSchedules(numSchedulesToPrint)) {
+            System.out.println("####");
+            schedule.print();
+            System.out.println("####");
+        }
+    }
+
+    private static void update(Replanner replanner, MatchResult result) {
+        long start = System.nanoTime();
+        print(result.getMatch() + " won by " + result.getWinner(), replanner.record(result), start);
+    }
+
+    private static void print(String label, ScheduleSummary summary, long start) {
+        System.out.printf("%s: max end time %d, max fields %d, %d schedules (%.1f ms)%n",
+                label, summary.getMaxEndTime(), summary.getMaxNumFields(), summary.getNumSchedules(),
+                (System.nanoTime() - start) / 1e6);
+    }
+}
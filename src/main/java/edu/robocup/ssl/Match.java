@@ -16,6 +16,12 @@ public class Match {
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
     List<Match> predecessors = new ArrayList<>();
+    /**
+     * Follow-up match of the winner, null if the diagram does not label the connections.
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    Match winnerFollowUp;
 
     public Match(String name) {
         this.name = name;
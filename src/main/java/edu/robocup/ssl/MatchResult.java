@@ -0,0 +1,24 @@
+package edu.robocup.ssl;
+
+import lombok.Value;
+
+/**
+ * A match that was already played, with its real start time and the name of the winning team.
+ */
+@Value
+public class MatchResult {
+    String match;
+    int startTime;
+    String winner;
+
+    /**
+     * Parse {@code match,startTime,winner}.
+     */
+    public static MatchResult parse(String line) {
+        var fields = line.split(",");
+        if (fields.length != 3) {
+            throw new IllegalArgumentException("Expected match,startTime,winner: " + line);
+        }
+        return new MatchResult(fields[0].trim(), Integer.parseInt(fields[1].trim()), fields[2].trim());
+    }
+}
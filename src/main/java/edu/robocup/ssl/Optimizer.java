@@ -0,0 +1,232 @@
+package edu.robocup.ssl;
+
+import lombok.SneakyThrows;
+import lombok.Value;
+import picocli.CommandLine;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Searches the seeding with the smallest worst case end time with simulated annealing.
+ * Every thread runs its own annealing chain, the fitness of equivalent seedings is shared through a cache.
+ */
+@CommandLine.Command(name = "optimize")
+public class Optimizer implements Runnable {
+
+    @CommandLine.Option(names = {"-t", "--teamsInputFile"})
+    private Path teamsInputFile = Paths.get("input.csv");
+
+    @CommandLine.Option(names = {"-d", "--tournamentDiagramFile"})
+    private Path tournamentDiagramFile = Paths.get("DD8.puml");
+
+    @CommandLine.Option(names = {"-s", "--initialStart"})
+    private int initialStart = 35;
+
+    @CommandLine.Option(names = {"-a", "--teamIds"},
+            description = "Participating teams, defaults to the first teams of the input file")
+    private List<Integer> teamIds;
+
+    @CommandLine.Option(names = {"-b", "--bounded"},
+            description = "Skip outcome subtrees that can not raise the maximum end time or number of fields")
+    private boolean bounded = false;
+
+    @CommandLine.Option(names = {"--fields"},
+            description = "Number of available fields, matches wait for a free field. 0 for unlimited fields")
+    private int fields = 0;
+
+    @CommandLine.Option(names = {"-n", "--numThreads"})
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    @CommandLine.Option(names = {"-l", "--timeLimit"},
+            description = "Seconds to search")
+    private int timeLimit = 60;
+
+    @CommandLine.Option(names = {"-k", "--numResults"},
+            description = "Number of best seedings to print")
+    private int numResults = 5;
+
+    @CommandLine.Option(names = {"--temperature"},
+            description = "Initial temperature in hours of end time, cools down to 1% until the time limit")
+    private double initialTemperature = 5;
+
+    @CommandLine.Option(names = {"--fitnessCacheSize"},
+            description = "Number of cached fitness values of canonical seedings")
+    private int fitnessCacheSize = 1 << 20;
+
+    @CommandLine.Option(names = {"--seed"},
+            description = "Seed of the random number generators, the one used is printed to repeat a run")
+    private long seed = System.nanoTime();
+
+    private Scheduler scheduler;
+    private Tournament tournament;
+    private Match[] seedingSlots;
+    private TranspositionCache fitnessCache;
+    private final LongAdder numCandidates = new LongAdder();
+    private final TreeSet<Result> bestResults = new TreeSet<>(Comparator.comparingLong(Result::getFitness)
+            .thenComparing(Result::getCanonicalKey));
+
+    @Override
+    public void run() {
+        System.out.printf("Seed: %d%n", seed);
+        var results = optimize();
+        for (var result : results) {
+            System.out.printf("End time: %d, fields: %d%n", result.getMaxEndTime(), result.getMaxNumFields());
+            describe(result.getSeeding()).forEach(line -> System.out.println("  " + line));
+        }
+        System.out.printf("Candidates: %d, evaluated: %d, cached: %d%n",
+                numCandidates.sum(), fitnessCache.getMisses(), fitnessCache.getHits());
+    }
+
+    @SneakyThrows
+    public List<Result> optimize() {
+        var teams = Team.loadTeams(teamsInputFile);
+        scheduler = Scheduler.load(tournamentDiagramFile, initialStart);
+        scheduler.setBounded(bounded);
+        scheduler.setMaxFields(fields);
+        tournament = new Tournament(scheduler, teams);
+        seedingSlots = tournament.calcSeedingSlots();
+        fitnessCache = new TranspositionCache(fitnessCacheSize);
+        if (teamIds == null) {
+            teamIds = IntStream.range(0, seedingSlots.length).boxed().collect(Collectors.toList());
+        }
+        if (teamIds.size() != seedingSlots.length) {
+            throw new IllegalArgumentException("The tournament needs " + seedingSlots.length + " teams, got " + teamIds);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeLimit);
+        var executorService = Executors.newFixedThreadPool(numThreads);
+        var chains = new ExecutorCompletionService<Void>(executorService);
+        var random = new SplittableRandom(seed);
+        for (int i = 0; i < numThreads; i++) {
+            chains.submit(new AnnealingChain(random.split(), deadline), null);
+        }
+        executorService.shutdown();
+        try {
+            // the first failed chain cancels the others
+            for (int i = 0; i < numThreads; i++) {
+                chains.take().get();
+            }
+        } finally {
+            executorService.shutdownNow();
+            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        synchronized (bestResults) {
+            return new ArrayList<>(bestResults);
+        }
+    }
+
+    private List<String> describe(int[] seeding) {
+        var assignment = tournament.toTeamAssignment(seedingSlots, seeding, 0);
+        return assignment.entrySet().stream()
+                .sorted(Comparator.comparing(e -> e.getKey().getName()))
+                .map(e -> e.getKey().getName() + ": " + e.getValue().stream()
+                        .map(Team::getName)
+                        .collect(Collectors.joining(" vs. ")))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Maximum end time and number of fields, packed so that smaller values are better.
+     */
+    private long fitness(int[] seeding) {
+        numCandidates.increment();
+        var assignment = tournament.toTeamAssignment(seedingSlots, seeding, 0);
+        var key = scheduler.getSymmetry().canonicalKey(assignment);
+        long fitness = fitnessCache.get(key);
+        if (fitness == TranspositionCache.ABSENT) {
+            var summary = scheduler.evaluate(assignment);
+            fitness = ((long) summary.getMaxEndTime() << 32) | summary.getMaxNumFields();
+            fitnessCache.put(key, fitness);
+            offer(new Result(key, seeding.clone(), fitness));
+        }
+        return fitness;
+    }
+
+    private void offer(Result result) {
+        synchronized (bestResults) {
+            bestResults.add(result);
+            if (bestResults.size() > numResults) {
+                bestResults.pollLast();
+            }
+        }
+    }
+
+    private static double energy(long fitness) {
+        return (fitness >>> 32) + (int) fitness / 100.0;
+    }
+
+    @Value
+    public static class Result {
+        String canonicalKey;
+        int[] seeding;
+        long fitness;
+
+        public int getMaxEndTime() {
+            return (int) (fitness >>> 32);
+        }
+
+        public int getMaxNumFields() {
+            return (int) fitness;
+        }
+    }
+
+    private class AnnealingChain implements Runnable {
+        private final SplittableRandom random;
+        private final long deadline;
+        private final long start = System.nanoTime();
+
+        AnnealingChain(SplittableRandom random, long deadline) {
+            this.random = random;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            int[] seeding = teamIds.stream().mapToInt(Integer::intValue).toArray();
+            shuffle(seeding);
+            double energy = energy(fitness(seeding));
+            long now;
+            while ((now = System.nanoTime()) < deadline && !Thread.currentThread().isInterrupted()) {
+                double progress = (double) (now - start) / (deadline - start);
+                double temperature = initialTemperature * Math.pow(0.01, progress);
+                int i = random.nextInt(seeding.length);
+                int j = random.nextInt(seeding.length);
+                if (seedingSlots[i] == seedingSlots[j]) {
+                    continue;
+                }
+                swap(seeding, i, j);
+                double candidateEnergy = energy(fitness(seeding));
+                double delta = candidateEnergy - energy;
+                if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                    energy = candidateEnergy;
+                } else {
+                    swap(seeding, i, j);
+                }
+            }
+        }
+
+        private void shuffle(int[] values) {
+            for (int i = values.length - 1; i > 0; i--) {
+                swap(values, i, random.nextInt(i + 1));
+            }
+        }
+
+        private void swap(int[] values, int i, int j) {
+            int value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package edu.robocup.ssl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome tree of a bracket in terms of seed slots instead of teams, compiled once and replayed for every seeding.
+ * <p>
+ * Seed slots number the seeded teams of the matches in ordinal order. The tree is stored in preorder as one
+ * instruction per node: the match, which is also the depth of the node, and the seed slots of its two teams.
+ * Replaying the instructions schedules the matches of every outcome exactly like {@link CompiledScheduler},
+ * the start times of the current path stay in an array indexed by match, as ancestors always have smaller ordinals.
+ */
+public class OutcomeTemplate {
+    /**
+     * Larger trees are searched without a template.
+     */
+    static final int MAX_NODES = 1 << 22;
+
+    private final CompiledBracket bracket;
+    private final int numSlots;
+    private final byte[] matches;
+    private final byte[] slotsA;
+    private final byte[] slotsB;
+
+    private OutcomeTemplate(CompiledBracket bracket, int numSlots, byte[] matches, byte[] slotsA, byte[] slotsB) {
+        this.bracket = bracket;
+        this.numSlots = numSlots;
+        this.matches = matches;
+        this.slotsA = slotsA;
+        this.slotsB = slotsB;
+    }
+
+    /**
+     * @return null if the outcome tree has more than {@value #MAX_NODES} nodes or too many matches
+     */
+    public static OutcomeTemplate compile(CompiledBracket bracket) {
+        int n = bracket.size();
+        if (n > Byte.MAX_VALUE) {
+            return null;
+        }
+        long numNodes = 0;
+        long paths = 1;
+        for (int m = 0; m < n; m++) {
+            numNodes += paths;
+            if (bracket.getFollowUps()[m].length > 0) {
+                paths *= 2;
+            }
+            if (numNodes > MAX_NODES) {
+                return null;
+            }
+        }
+
+        int[] teamSlots = new int[n * 2];
+        int[] numAssigned = new int[n];
+        int numSlots = 0;
+        for (int m = 0; m < n; m++) {
+            for (int i = 0; i < 2 - bracket.getPredecessors()[m].length; i++) {
+                teamSlots[m * 2 + numAssigned[m]++] = numSlots++;
+            }
+        }
+        var builder = new Builder(bracket, (int) numNodes, teamSlots, numAssigned);
+        builder.visit(0);
+        return new OutcomeTemplate(bracket, numSlots, builder.matches, builder.slotsA, builder.slotsB);
+    }
+
+    public int getNumSlots() {
+        return numSlots;
+    }
+
+    public int getNumNodes() {
+        return matches.length;
+    }
+
+    /**
+     * Evaluate all outcomes of a team mapping.
+     *
+     * @param maxFields number of fields, 0 for unlimited, see {@link CompiledScheduler#setMaxFields(int)}
+     */
+    public ScheduleSummary evaluate(Map<Match, List<Team>> teamMapping, int initialStart, int maxFields) {
+        int n = bracket.size();
+        var teams = new Team[numSlots];
+        int slot = 0;
+        for (var match : bracket.getMatches()) {
+            var matchTeams = teamMapping.get(match);
+            int numTeams = matchTeams == null ? 0 : matchTeams.size();
+            if (numTeams != 2 - match.getPredecessors().size()) {
+                throw new IllegalArgumentException("Expected " + (2 - match.getPredecessors().size())
+                        + " teams for " + match.getName() + ", got " + numTeams);
+            }
+            for (int i = 0; i < numTeams; i++) {
+                teams[slot++] = matchTeams.get(i);
+            }
+        }
+        var availability = new AvailabilityTable(teams);
+
+        int[] startTimes = new int[n];
+        int[] prefixMaxEndTime = new int[n];
+        int[] prefixMaxNumFields = new int[n];
+        // every match starts within a day before or after its predecessors
+        int slotOffset = initialStart - 24 * (n + 1);
+        int[] slotOccupancy = new int[48 * (n + 1) + 1];
+
+        int numSchedules = 0;
+        int maxEndTime = 0;
+        int maxNumFields = 0;
+        int depth = -1;
+        for (int node = 0; node < matches.length; node++) {
+            int match = matches[node];
+            // leave the matches of the previous path that are not ancestors of this node
+            for (; depth >= match; depth--) {
+                slotOccupancy[startTimes[depth] - slotOffset]--;
+            }
+            int baseTime = initialStart;
+            for (int predecessor : bracket.getPredecessors()[match]) {
+                baseTime = Math.max(baseTime, startTimes[predecessor]);
+            }
+            int teamA = slotsA[node];
+            int teamB = slotsB[node];
+            int startTime = availability.nextCommonStart(teamA, teamB, baseTime + 1);
+            if (startTime - slotOffset >= slotOccupancy.length) {
+                slotOccupancy = Arrays.copyOf(slotOccupancy, Math.max(startTime - slotOffset + 1, slotOccupancy.length * 2));
+            }
+            if (maxFields > 0) {
+                while (slotOccupancy[startTime - slotOffset] >= maxFields) {
+                    startTime = Math.max(startTime + 1, availability.nextCommonStart(teamA, teamB, startTime + 1));
+                    if (startTime - slotOffset >= slotOccupancy.length) {
+                        slotOccupancy = Arrays.copyOf(slotOccupancy, Math.max(startTime - slotOffset + 1, slotOccupancy.length * 2));
+                    }
+                }
+            }
+            startTimes[match] = startTime;
+            int occupancy = ++slotOccupancy[startTime - slotOffset];
+            prefixMaxEndTime[match] = match == 0 ? startTime : Math.max(prefixMaxEndTime[match - 1], startTime);
+            prefixMaxNumFields[match] = match == 0 ? occupancy : Math.max(prefixMaxNumFields[match - 1], occupancy);
+            depth = match;
+            if (match == n - 1) {
+                numSchedules++;
+                maxEndTime = Math.max(maxEndTime, prefixMaxEndTime[match]);
+                maxNumFields = Math.max(maxNumFields, prefixMaxNumFields[match]);
+            }
+        }
+        return new ScheduleSummary(numSchedules, maxEndTime, maxNumFields, 0, matches.length);
+    }
+
+    /**
+     * Walks the outcome tree like {@link CompiledScheduler} with seed slots in place of teams.
+     */
+    private static class Builder {
+        final CompiledBracket bracket;
+        final int[] teamSlots;
+        final int[] numAssigned;
+        final byte[] matches;
+        final byte[] slotsA;
+        final byte[] slotsB;
+        int numNodes;
+
+        Builder(CompiledBracket bracket, int numNodes, int[] teamSlots, int[] numAssigned) {
+            this.bracket = bracket;
+            this.teamSlots = teamSlots;
+            this.numAssigned = numAssigned;
+            this.matches = new byte[numNodes];
+            this.slotsA = new byte[numNodes];
+            this.slotsB = new byte[numNodes];
+        }
+
+        void visit(int match) {
+            if (match == bracket.size()) {
+                return;
+            }
+            int teamA = teamSlots[match * 2];
+            int teamB = teamSlots[match * 2 + 1];
+            matches[numNodes] = (byte) match;
+            slotsA[numNodes] = (byte) teamA;
+            slotsB[numNodes] = (byte) teamB;
+            numNodes++;
+
+            int[] followUps = bracket.getFollowUps()[match];
+            if (followUps.length == 0) {
+                visit(match + 1);
+                return;
+            }
+            for (int branch = 0; branch < 2; branch++) {
+                push(followUps[0], branch == 0 ? teamA : teamB);
+                if (followUps.length == 2) {
+                    push(followUps[1], branch == 0 ? teamB : teamA);
+                }
+                visit(match + 1);
+                for (int followUp : followUps) {
+                    numAssigned[followUp]--;
+                }
+            }
+        }
+
+        void push(int match, int slot) {
+            teamSlots[match * 2 + numAssigned[match]++] = slot;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package edu.robocup.ssl;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schedule of a compiled bracket in primitive arrays indexed by match ordinal:
+ * the indexes of both teams of a match in a byte array and the start times in a short array.
+ * The maximum end time and number of fields are tracked by the search and stored along.
+ */
+@RequiredArgsConstructor
+public class PackedSchedule {
+    private final CompiledBracket bracket;
+    private final Team[] teams;
+    private final byte[] teamIds;
+    private final short[] startTimes;
+    private final int maxEndTime;
+    private final int maxNumFields;
+
+    public int findMaxEndTime() {
+        return maxEndTime;
+    }
+
+    public int findMaxNumFields() {
+        return maxNumFields;
+    }
+
+    public Map<String, MatchAssignment> toAssignmentMap() {
+        Map<String, MatchAssignment> assignmentMap = new HashMap<>();
+        var matches = bracket.getMatches();
+        for (int i = 0; i < matches.length; i++) {
+            var matchTeams = List.of(teams[teamIds[i * 2]], teams[teamIds[i * 2 + 1]]);
+            assignmentMap.put(matches[i].getName(), new MatchAssignment(matches[i], matchTeams, (int) startTimes[i]));
+        }
+        return assignmentMap;
+    }
+}
@@ -20,6 +20,24 @@ public class Planner implements Runnable {
     @CommandLine.Option(names = {"-s", "--initialStart"})
     private int initialStart = 35;
 
+    @CommandLine.Option(names = {"-e", "--engine"})
+    private Scheduler.Engine engine = Scheduler.Engine.COMPILED;
+
+    @CommandLine.Option(names = {"-b", "--bounded"},
+            description = "Skip outcome subtrees that can not raise the maximum end time or number of fields")
+    private boolean bounded = false;
+
+    @CommandLine.Option(names = {"-c", "--cacheSize"},
+            description = "Maximum number of cached outcome subtrees, 0 disables the transposition cache")
+    private int cacheSize = 0;
+
+    @CommandLine.Option(names = {"--fields"},
+            description = "Number of available fields, matches wait for a free field. 0 for unlimited fields")
+    private int fields = 0;
+
+    @CommandLine.Option(names = {"-f", "--forkDepth"})
+    private int forkDepth = 0;
+
     @CommandLine.Option(names = {"-n", "--numSchedulesToPrint"})
     private int numSchedulesToPrint = 10;
 
@@ -32,18 +50,26 @@ public class Planner implements Runnable {
     public void run() {
         var teams = Team.loadTeams(teamsInputFile);
         var scheduler = Scheduler.load(tournamentDiagramFile, initialStart);
+        scheduler.setEngine(engine);
+        scheduler.setBounded(bounded);
+        scheduler.setMaxFields(fields);
+        var transpositionCache = cacheSize > 0 ? new TranspositionCache(cacheSize) : null;
+        scheduler.setTranspositionCache(transpositionCache);
 
         var selectedTeams = teamIds.stream().map(teams::get).collect(Collectors.toList());
         var tournament = new Tournament(scheduler, selectedTeams);
         var teamAssignment = tournament.calcTeamAssignment(teamIds);
-        var allSchedules = scheduler.findAllSchedules(teamAssignment);
-
-        var maxEndTime = allSchedules.stream().mapToInt(Schedule::findMaxEndTime).max().orElseThrow();
-        System.out.println("Max End time: " + maxEndTime);
+        var summary = forkDepth > 0
+                ? scheduler.evaluateParallel(teamAssignment, forkDepth)
+                : scheduler.evaluate(teamAssignment);
+        if (summary.getNumSchedules() == 0) {
+            throw new IllegalStateException("No schedules found");
+        }
+        System.out.println("Max End time: " + summary.getMaxEndTime());
 
-        for (var i = 0; i < Math.min(numSchedulesToPrint, allSchedules.size()); i++) {
+        for (var schedule : scheduler.findSchedules(teamAssignment, numSchedulesToPrint)) {
             System.out.println("####");
-            allSchedules.get(i).print();
+            schedule.print();
             System.out.println("####");
         }
     }
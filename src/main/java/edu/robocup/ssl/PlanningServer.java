@@ -0,0 +1,378 @@
+package edu.robocup.ssl;
+
+import lombok.SneakyThrows;
+import lombok.Value;
+import picocli.CommandLine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Answers planning requests in a long-running JVM, so repeated questions skip the JVM start, the warm-up
+ * and loading the inputs. Compiled brackets, team files and schedulers with their transposition caches stay
+ * in memory and are reloaded when a file changes.
+ * <p>
+ * Requests and responses are JSON objects, one per line, read from standard input or from loopback TCP connections.
+ * Requests run concurrently on a shared pool, so responses may arrive out of order and echo the request's id.
+ * A request holds the {@code op} ({@code evaluate}, {@code plan} or {@code stats}) and optionally the options of
+ * the planner: {@code teamsInputFile}, {@code tournamentDiagramFile}, {@code initialStart}, {@code teamIds},
+ * {@code bounded}, {@code fields} and for {@code plan} the number of {@code schedules} to return.
+ * Every response reports the latency of the request in {@code micros}, including the time it waited for a worker.
+ */
+@CommandLine.Command(name = "serve")
+public class PlanningServer implements Runnable {
+
+    @CommandLine.Option(names = {"-p", "--port"},
+            description = "Listen for connections on this loopback port instead of reading standard input")
+    private Integer port;
+
+    @CommandLine.Option(names = {"-n", "--numThreads"})
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    @CommandLine.Option(names = {"-c", "--cacheSize"},
+            description = "Maximum number of cached outcome subtrees per scheduler, 0 disables the transposition cache")
+    private int cacheSize = 1 << 20;
+
+    @CommandLine.Option(names = {"--maxSchedulers"},
+            description = "Maximum number of schedulers with their transposition caches kept for different settings, "
+                    + "the least recently used one is dropped first")
+    private int maxSchedulers = 8;
+
+    private final Map<Path, Loaded<CompiledBracket>> brackets = new ConcurrentHashMap<>();
+    private final Map<Path, Loaded<List<Team>>> teamSets = new ConcurrentHashMap<>();
+    private final Map<SchedulerKey, Scheduler> schedulers = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SchedulerKey, Scheduler> eldest) {
+            return size() > maxSchedulers;
+        }
+    };
+
+    private final LongAdder numRequests = new LongAdder();
+    private final LongAdder numErrors = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    private ExecutorService workers;
+
+    @SneakyThrows
+    @Override
+    public void run() {
+        start();
+        try {
+            if (port != null) {
+                listen();
+            } else {
+                var out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+                serve(System.in, out);
+            }
+        } finally {
+            stop();
+            System.err.println(Json.write(stats()));
+        }
+    }
+
+    public void start() {
+        workers = Executors.newFixedThreadPool(numThreads);
+    }
+
+    /**
+     * Wait for the requests that were already submitted and stop the workers.
+     */
+    public void stop() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    private void listen() throws IOException {
+        try (var serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.err.println("Listening on port " + serverSocket.getLocalPort());
+            while (!Thread.currentThread().isInterrupted()) {
+                var socket = serverSocket.accept();
+                var connection = new Thread(() -> serve(socket), "connection-" + socket.getPort());
+                connection.setDaemon(true);
+                connection.start();
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            serve(socket.getInputStream(), socket.getOutputStream());
+        } catch (IOException e) {
+            System.err.println("Connection failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read requests until the input ends and write every response as soon as it is ready.
+     * Returns after all responses of this input were written.
+     */
+    public void serve(InputStream in, OutputStream out) throws IOException {
+        var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        var writer = new PrintStream(out, true, StandardCharsets.UTF_8);
+        var pending = new LongAdder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            pending.increment();
+            submit(line, response -> {
+                synchronized (writer) {
+                    writer.println(response);
+                    pending.decrement();
+                    writer.notifyAll();
+                }
+            });
+        }
+        synchronized (writer) {
+            while (pending.sum() > 0) {
+                try {
+                    writer.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Answer a request on the worker pool.
+     */
+    public void submit(String request, Consumer<String> responseConsumer) {
+        long received = System.nanoTime();
+        workers.execute(() -> responseConsumer.accept(handle(request, received)));
+    }
+
+    /**
+     * Answer a request on the calling thread.
+     */
+    public String handle(String request) {
+        return handle(request, System.nanoTime());
+    }
+
+    private String handle(String request, long received) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        try {
+            var parsed = Json.parse(request);
+            if (!(parsed instanceof Map)) {
+                throw new IllegalArgumentException("Request is not an object");
+            }
+            @SuppressWarnings("unchecked")
+            var fields = (Map<String, Object>) parsed;
+            response.put("id", fields.get("id"));
+            response.put("ok", true);
+            answer(fields, response);
+        } catch (Throwable e) {
+            // also answer errors such as a stack overflow on deeply nested input, serve() waits for every response
+            numErrors.increment();
+            response.put("ok", false);
+            response.put("error", e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - received);
+        numRequests.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+        response.put("micros", micros);
+        return Json.write(response);
+    }
+
+    private void answer(Map<String, Object> request, Map<String, Object> response) throws IOException {
+        var op = String.valueOf(request.getOrDefault("op", "evaluate"));
+        if ("stats".equals(op)) {
+            response.putAll(stats());
+            return;
+        }
+        if (!"evaluate".equals(op) && !"plan".equals(op)) {
+            throw new IllegalArgumentException("Unknown op: " + op);
+        }
+
+        var teams = teams(Paths.get(stringField(request, "teamsInputFile", "input.csv")));
+        var scheduler = scheduler(teams, Paths.get(stringField(request, "tournamentDiagramFile", "DD8.puml")),
+                intField(request, "initialStart", 35),
+                intField(request, "fields", 0),
+                Boolean.TRUE.equals(request.get("bounded")));
+        var teamIds = teamIds(request, teams.size());
+        int numSlots = scheduler.getTeamDemand().values().stream().mapToInt(Integer::intValue).sum();
+        if (teamIds.size() != numSlots) {
+            throw new IllegalArgumentException("The bracket needs " + numSlots + " teams, not " + teamIds.size());
+        }
+        var teamAssignment = new Tournament(scheduler, teams).calcTeamAssignment(teamIds);
+
+        var summary = scheduler.evaluate(teamAssignment);
+        response.put("maxEndTime", summary.getMaxEndTime());
+        response.put("maxNumFields", summary.getMaxNumFields());
+        response.put("numSchedules", summary.getNumSchedules());
+        if ("plan".equals(op)) {
+            List<Object> schedules = new ArrayList<>();
+            for (var schedule : scheduler.findSchedules(teamAssignment, intField(request, "schedules", 10))) {
+                schedules.add(toJson(schedule));
+            }
+            response.put("schedules", schedules);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long count = numRequests.sum();
+        stats.put("requests", count);
+        stats.put("errors", numErrors.sum());
+        stats.put("meanMicros", count > 0 ? totalMicros.sum() / count : 0);
+        stats.put("maxMicros", maxMicros.get());
+        stats.put("brackets", brackets.size());
+        stats.put("teamSets", teamSets.size());
+        synchronized (schedulers) {
+            stats.put("schedulers", schedulers.size());
+        }
+        return stats;
+    }
+
+    private List<Team> teams(Path file) throws IOException {
+        return cached(teamSets, file, Team::loadTeams);
+    }
+
+    /**
+     * Schedulers are shared by concurrent requests with the same settings, their settings never change afterwards.
+     * Only the {@link #maxSchedulers} most recently used ones are kept, each of them owns a transposition cache.
+     * The cached subtrees depend on the window codes of the teams, so every team list gets its own schedulers.
+     */
+    private Scheduler scheduler(List<Team> teams, Path diagram, int initialStart, int fields, boolean bounded)
+            throws IOException {
+        var path = diagram.toAbsolutePath().normalize();
+        var bracket = cached(brackets, path, Scheduler::loadBracket);
+        var key = new SchedulerKey(path, bracket, teams, initialStart, fields, bounded);
+        synchronized (schedulers) {
+            var scheduler = schedulers.get(key);
+            if (scheduler != null) {
+                return scheduler;
+            }
+            // drop the schedulers and transposition caches of a replaced bracket
+            schedulers.keySet().removeIf(k -> k.getDiagram().equals(path) && k.getBracket() != bracket);
+            scheduler = Scheduler.of(bracket, initialStart);
+            scheduler.setMaxFields(fields);
+            scheduler.setBounded(bounded);
+            scheduler.setTranspositionCache(cacheSize > 0 ? new TranspositionCache(cacheSize) : null);
+            schedulers.put(key, scheduler);
+            return scheduler;
+        }
+    }
+
+    /**
+     * Load a file once per modification time, a changed file replaces the previously loaded one.
+     */
+    private static <T> T cached(Map<Path, Loaded<T>> cache, Path file, Loader<T> loader) throws IOException {
+        var path = file.toAbsolutePath().normalize();
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        try {
+            return cache.compute(path, (k, loaded) -> {
+                if (loaded != null && loaded.getModified() == modified) {
+                    return loaded;
+                }
+                try {
+                    return new Loaded<>(modified, loader.load(path));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).getValue();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Value
+    private static class Loaded<T> {
+        long modified;
+        T value;
+    }
+
+    /**
+     * Brackets are compared by identity, a reloaded bracket gets new schedulers. Team lists are compared by value,
+     * equal lists get the same window codes.
+     */
+    @Value
+    private static class SchedulerKey {
+        Path diagram;
+        CompiledBracket bracket;
+        List<Team> teams;
+        int initialStart;
+        int fields;
+        boolean bounded;
+    }
+
+    private interface Loader<T> {
+        T load(Path file) throws IOException;
+    }
+
+    private static List<Object> toJson(Schedule schedule) {
+        return schedule.getAssignmentMap().values().stream()
+                .filter(m -> m.getStartTime() != null)
+                .sorted((a, b) -> Integer.compare(a.getStartTime(), b.getStartTime()))
+                .map(m -> {
+                    Map<String, Object> match = new LinkedHashMap<>();
+                    match.put("match", m.getMatch().getName());
+                    match.put("startTime", m.getStartTime());
+                    match.put("teams", m.getTeams().stream().map(Team::getName).collect(Collectors.toList()));
+                    return match;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private static List<Integer> teamIds(Map<String, Object> request, int numTeams) {
+        var teamIds = request.get("teamIds");
+        if (teamIds == null) {
+            return List.of(0, 1, 2, 3, 4, 5, 6, 7);
+        }
+        if (!(teamIds instanceof List)) {
+            throw new IllegalArgumentException("teamIds is not an array");
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (var id : (List<?>) teamIds) {
+            if (!(id instanceof Number) || ((Number) id).intValue() < 0 || ((Number) id).intValue() >= numTeams) {
+                throw new IllegalArgumentException("Not a team id: " + id);
+            }
+            ids.add(((Number) id).intValue());
+        }
+        return ids;
+    }
+
+    private static String stringField(Map<String, Object> request, String name, String defaultValue) {
+        var value = request.get(name);
+        return value != null ? value.toString() : defaultValue;
+    }
+
+    private static int intField(Map<String, Object> request, String name, int defaultValue) {
+        var value = request.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException(name + " is not a number");
+        }
+        return ((Number) value).intValue();
+    }
+}
@@ -4,17 +4,29 @@ import lombok.SneakyThrows;
 import org.apache.commons.math3.util.CombinatoricsUtils;
 import picocli.CommandLine;
 
+import java.io.DataInput;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @CommandLine.Command(name = "process")
 public class Processor implements Runnable {
@@ -28,82 +40,591 @@ public class Processor implements Runnable {
     @CommandLine.Option(names = {"-s", "--initialStart"})
     private int initialStart = 35;
 
+    @CommandLine.Option(names = {"-e", "--engine"})
+    private Scheduler.Engine engine = Scheduler.Engine.COMPILED;
+
+    @CommandLine.Option(names = {"-v", "--validate"})
+    private boolean validate = false;
+
     @CommandLine.Option(names = {"-n", "--numThreads"})
     private int numThreads = Runtime.getRuntime().availableProcessors();
 
-    private BlockingDeque<List<Map<Match, List<Team>>>> workerQueue;
+    @CommandLine.Option(names = {"-b", "--bounded"},
+            description = "Skip outcome subtrees that can not raise the maximum end time or number of fields")
+    private boolean bounded = false;
+
+    @CommandLine.Option(names = {"-c", "--cacheSize"},
+            description = "Maximum number of cached outcome subtrees, 0 disables the transposition cache")
+    private int cacheSize = 0;
+
+    @CommandLine.Option(names = {"--fields"},
+            description = "Number of available fields, matches wait for a free field. 0 for unlimited fields")
+    private int fields = 0;
+
+    @CommandLine.Option(names = {"-f", "--forkDepth"},
+            description = "Use a fork/join pool and split each outcome tree down to this many branch points")
+    private int forkDepth = 0;
+
+    @CommandLine.Option(names = {"--structured"},
+            description = "Run every batch as a task of a task scope, the first failure cancels the run")
+    private boolean structured = false;
+
+    @CommandLine.Option(names = {"--canonical"},
+            description = "Evaluate only one team mapping per class of equivalent mappings of a combination, "
+                    + "weighted by the size of the class. The result store holds only the evaluated mappings")
+    private boolean canonical = false;
+
+    @CommandLine.Option(names = {"--canonicalCacheSize"},
+            description = "Number of canonical team mapping results kept to skip equivalent mappings of other combinations")
+    private int canonicalCacheSize = 1 << 20;
+
+    @CommandLine.Option(names = {"--checkpoint"},
+            description = "Periodically write the progress to this file")
+    private Path checkpointFile;
+
+    @CommandLine.Option(names = {"--checkpointInterval"},
+            description = "Seconds between two checkpoints")
+    private int checkpointInterval = 5;
+
+    @CommandLine.Option(names = {"--resume"},
+            description = "Continue from the checkpoint file without redoing completed combinations")
+    private boolean resume = false;
+
+    @CommandLine.Option(names = {"--results"},
+            description = "Store the result of every seeding in this file, replaced unless resuming. "
+                    + "Samples store their stratum as combination")
+    private Path resultsFile;
+
+    @CommandLine.Option(names = {"--metricsPort"},
+            description = "Serve the metrics in the Prometheus text format on this local port, 0 disables the endpoint")
+    private int metricsPort = 0;
+
+    @CommandLine.Option(names = {"--poolSize"},
+            description = "Number of teams from the start of the teams input file to choose from, 0 for all teams")
+    private int poolSize = 0;
+
+    @CommandLine.Option(names = {"--samples"},
+            description = "Estimate the results from this many random seedings instead of evaluating all, 0 for all")
+    private int numSamples = 0;
+
+    @CommandLine.Option(names = {"--strata"},
+            description = "Number of strata of team combinations the samples are spread over")
+    private int numStrata = 64;
+
+    @CommandLine.Option(names = {"--seed"},
+            description = "Seed of the random sampling, the one used is printed to repeat a run")
+    private long seed = System.nanoTime();
+
+    @CommandLine.Option(names = {"--batchSize"},
+            description = "Maximum number of seedings handed to a worker at once")
+    private int batchSize = 24;
+
+    @CommandLine.Option(names = {"--listen"},
+            description = "Coordinate worker processes that connect to this loopback port instead of evaluating, "
+                    + "0 for any free port")
+    private Integer listenPort;
+
+    @CommandLine.Option(names = {"--connect"},
+            description = "Evaluate the ranges of the coordinator listening on this loopback port")
+    private Integer coordinatorPort;
+
+    @CommandLine.Option(names = {"--rangeSize"},
+            description = "Number of team combinations the coordinator hands to a worker process at once")
+    private int rangeSize = 16;
+
+    @CommandLine.Option(names = {"--workerTimeout"},
+            description = "Seconds without progress after which the coordinator hands the range of a worker "
+                    + "to another one, 0 to wait forever")
+    private int workerTimeout = 60;
+
+    /**
+     * Tells a worker that no more batches follow.
+     */
+    private static final SeedingBatch END_OF_WORK = new SeedingBatch(null, 0, 0, new int[0]);
+
+    private int queueCapacity;
+    private BlockingDeque<SeedingBatch> workerQueue;
+    private ForkJoinPool forkJoinPool;
+    private TaskScope taskScope;
+    private Semaphore forkJoinSlots;
+    /**
+     * First exception of a worker or fork/join task. Batches queued afterwards are skipped and the sweep rethrows it,
+     * like a {@link TaskScope} does.
+     */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final LongAdder producerStallNanos = new LongAdder();
+    private final LongAdder workerStallNanos = new LongAdder();
+    private final LongAdder numRecordedBatches = new LongAdder();
     private Evaluator evaluator;
+    private final ProcessorMetrics metrics = new ProcessorMetrics();
+    private TranspositionCache transpositionCache;
     private Scheduler scheduler;
+    private Tournament tournament;
+    private Match[] seedingSlots;
+    private TranspositionCache canonicalResults;
+    private Checkpoint checkpoint;
+    private ResultStore resultStore;
+    private SweepCoordinator coordinator;
+    private BitSet completedCombinations = new BitSet();
+    /**
+     * Combinations completed during this run, as words of a bitmap that workers update without locking.
+     * Empty if not tracked.
+     */
+    private AtomicLongArray newlyCompletedCombinations;
+    /**
+     * Workers record results under the shared lock, a checkpoint takes the exclusive lock for a consistent state.
+     */
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
 
     @SneakyThrows
     @Override
     public void run() {
         var teams = Team.loadTeams(teamsInputFile);
-        workerQueue = new LinkedBlockingDeque<>(numThreads * 2);
+        queueCapacity = numThreads * 2;
+        workerQueue = new LinkedBlockingDeque<>(queueCapacity);
         scheduler = Scheduler.load(tournamentDiagramFile, initialStart);
-        evaluator = new Evaluator();
-        evaluator.setFindMaxNumFields(true);
+        tournament = new Tournament(scheduler, teams);
+        seedingSlots = tournament.calcSeedingSlots();
+        scheduler.setEngine(engine);
+        scheduler.setBounded(bounded);
+        scheduler.setMaxFields(fields);
+        // a coordinator only merges the results of its workers
+        boolean evaluating = listenPort == null;
+        transpositionCache = cacheSize > 0 && evaluating ? new TranspositionCache(cacheSize) : null;
+        scheduler.setTranspositionCache(transpositionCache);
+        evaluator = newEvaluator();
 
-        var executorService = Executors.newScheduledThreadPool(numThreads + 1);
-        for (int i = 0; i < numThreads; i++) {
-            executorService.submit(new WorkerThread());
+        if (canonical && evaluating) {
+            canonicalResults = new TranspositionCache(canonicalCacheSize);
         }
+
+        int numTeams = poolSize > 0 ? Math.min(poolSize, teams.size()) : teams.size();
+        int numSlots = seedingSlots.length;
+        long numCombinations = Combinations.count(numTeams, numSlots);
+        if (numSamples == 0 && numCombinations > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(numCombinations + " team combinations are too many to enumerate, use --samples");
+        }
+        if (numSamples > 0 && checkpointFile != null) {
+            throw new IllegalArgumentException("--samples can not be combined with --checkpoint");
+        }
+        if (structured && forkDepth > 0) {
+            throw new IllegalArgumentException("--structured can not be combined with --forkDepth");
+        }
+        if (listenPort != null || coordinatorPort != null) {
+            if (listenPort != null && coordinatorPort != null) {
+                throw new IllegalArgumentException("--listen can not be combined with --connect");
+            }
+            if (numSamples > 0 || resultsFile != null) {
+                throw new IllegalArgumentException("--samples and --results can not be combined with --listen or --connect");
+            }
+            if (coordinatorPort != null && checkpointFile != null) {
+                throw new IllegalArgumentException("--checkpoint is written by the coordinator, not by its workers");
+            }
+        }
+        System.out.printf("%d teams, %d slots: %d combinations of %d seedings%n", numTeams, numSlots,
+                numCombinations, CombinatoricsUtils.factorial(scheduler.getTeamDemand().size()));
+        boolean trackCompleted = numSamples == 0 && coordinatorPort == null;
+        newlyCompletedCombinations = new AtomicLongArray(trackCompleted ? (int) ((numCombinations + 63) / 64) : 0);
+        // a checkpoint and a coordinator only accept the same inputs
+        var runKey = String.format("%s|%s|%d|%d|%d|%d",
+                tournamentDiagramFile, teamsInputFile, initialStart, numTeams, numSlots, fields);
+
+        if (checkpointFile != null) {
+            checkpoint = new Checkpoint(checkpointFile, runKey);
+            if (resume && checkpoint.exists()) {
+                completedCombinations = checkpoint.restore(evaluator);
+                System.out.printf("Resuming with %d completed combinations and %d tournaments%n",
+                        completedCombinations.cardinality(), evaluator.getNumTournaments());
+            }
+        } else if (resume) {
+            throw new IllegalArgumentException("--resume requires --checkpoint");
+        }
+        if (resultsFile != null) {
+            resultStore = ResultStore.open(resultsFile, seedingSlots.length);
+            if (resume) {
+                resultStore.truncate(completedCombinations);
+            } else {
+                resultStore.truncate(0);
+            }
+        }
+
+        var executorService = Executors.newSingleThreadScheduledExecutor();
+        metrics.register();
+        var metricsServer = metricsPort > 0 ? new MetricsServer(metrics, metricsPort) : null;
         executorService.scheduleAtFixedRate(new StatsThread(), 1, 1, TimeUnit.SECONDS);
-        executorService.scheduleAtFixedRate(new SummaryThread(), 10, 60, TimeUnit.SECONDS);
+        if (coordinatorPort == null) {
+            executorService.scheduleAtFixedRate(new SummaryThread(), 10, 60, TimeUnit.SECONDS);
+        }
+        if (checkpoint != null) {
+            executorService.scheduleWithFixedDelay(new CheckpointThread(),
+                    checkpointInterval, checkpointInterval, TimeUnit.SECONDS);
+        }
 
-        Iterator<int[]> iterator = CombinatoricsUtils.combinationsIterator(16, 8);
-        while (iterator.hasNext()) {
-            List<Integer> teamCombinations = toList(iterator.next());
-            var tournament = new Tournament(scheduler, teams);
-            var teamAssignmentCombinations = tournament.calcTeamAssignmentCombinations(teamCombinations);
-            workerQueue.putLast(teamAssignmentCombinations);
+        int numFixed = numSlots - scheduler.getTeamDemand().size();
+        try {
+            if (coordinatorPort != null) {
+                work(numSlots, numFixed, runKey);
+            } else if (listenPort != null) {
+                coordinate(numCombinations, runKey);
+            } else if (numSamples > 0) {
+                System.out.printf("Sampling %d seedings with seed %d%n", numSamples, seed);
+                var sampler = new SeedingSampler(numTeams, numSlots, numFixed, batchSize, numStrata, numSamples, seed);
+                evaluator.setStratumWeights(sampler.getStratumWeights());
+                sweep(sampler);
+            } else {
+                sweep(seedingGenerator(new SeedingGenerator(numTeams, numSlots, numFixed, batchSize,
+                        completedCombinations)));
+            }
+        } catch (Exception e) {
+            executorService.shutdownNow();
+            if (metricsServer != null) {
+                metricsServer.close();
+            }
+            throw e;
         }
+        // periodic tasks are cancelled on shutdown, only a task that is running right now is awaited
         executorService.shutdown();
-        boolean terminated = executorService.awaitTermination(10, TimeUnit.SECONDS);
-        if (!terminated) {
-            System.out.println("Executor service did not terminate in time");
+        executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        if (checkpoint != null) {
+            writeCheckpoint();
+        }
+        if (resultStore != null) {
+            resultStore.close();
+        }
+        if (metricsServer != null) {
+            metricsServer.close();
+        }
+        metrics.unregister();
+        if (coordinatorPort == null) {
+            evaluator.summary();
+        }
+        System.out.println(coordinator != null
+                ? "Sweep:" + sweepStatistics().substring(" | sweep:".length())
+                : "Pipeline:" + pipelineStatistics().substring(" | pipeline:".length()));
+        if (canonicalResults != null) {
+            System.out.printf("Canonical team mappings: %d evaluated, %d reused%n",
+                    canonicalResults.getMisses(), canonicalResults.getHits());
+        }
+    }
+
+    private Evaluator newEvaluator() {
+        var newEvaluator = new Evaluator();
+        newEvaluator.setFindMaxNumFields(true);
+        newEvaluator.setValidate(validate);
+        newEvaluator.setTranspositionCache(transpositionCache);
+        return newEvaluator;
+    }
+
+    /**
+     * Evaluate all seedings and return once all of them are recorded.
+     */
+    private void sweep(Iterator<SeedingBatch> seedings) throws InterruptedException, ExecutionException {
+        ExecutorService workerPool = null;
+        if (structured) {
+            taskScope = new TaskScope(numThreads, numThreads + queueCapacity);
+            metrics.setQueueDepth(() -> Math.max(0, taskScope.getNumPending() - numThreads));
+        } else if (forkDepth > 0) {
+            forkJoinPool = new ForkJoinPool(numThreads);
+            forkJoinSlots = new Semaphore(queueCapacity);
+            metrics.setQueueDepth(() -> queueCapacity - forkJoinSlots.availablePermits());
+        } else {
+            metrics.setQueueDepth(workerQueue::size);
+            workerPool = Executors.newFixedThreadPool(numThreads);
+            for (int i = 0; i < numThreads; i++) {
+                workerPool.submit(new WorkerThread());
+            }
+        }
+
+        while (failure.get() == null && seedings.hasNext()) {
+            var batch = seedings.next();
+            long stallStart = System.nanoTime();
+            if (taskScope != null) {
+                if (!taskScope.fork(() -> process(batch))) {
+                    break;
+                }
+                producerStallNanos.add(System.nanoTime() - stallStart);
+            } else if (forkJoinPool != null) {
+                forkJoinSlots.acquire();
+                producerStallNanos.add(System.nanoTime() - stallStart);
+                submitForkJoin(batch);
+            } else {
+                workerQueue.putLast(batch);
+                producerStallNanos.add(System.nanoTime() - stallStart);
+            }
+        }
+        if (taskScope != null) {
+            try {
+                taskScope.join();
+            } finally {
+                taskScope.close();
+            }
+        } else if (forkJoinPool != null) {
+            forkJoinSlots.acquire(queueCapacity);
+            forkJoinPool.shutdown();
+        } else {
+            for (int i = 0; i < numThreads; i++) {
+                workerQueue.putLast(END_OF_WORK);
+            }
+            workerPool.shutdown();
+            workerPool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        // every sweep has new threads, a worker of many ranges would otherwise keep a stripe per thread
+        evaluator.foldEndedStripes();
+        metrics.foldEndedStripes();
+        if (failure.get() != null) {
+            throw new ExecutionException(failure.get());
+        }
+    }
+
+    /**
+     * Sweep the ranges of a coordinator, each one into a new evaluator.
+     */
+    private void work(int numSlots, int numFixed, String runKey) throws Exception {
+        var numTournaments = new LongAdder();
+        var worker = new SweepWorker(runKey, (firstRank, endRank) -> {
+            evaluator = newEvaluator();
+            sweep(seedingGenerator(new SeedingGenerator(numSlots, numFixed, batchSize, firstRank, endRank,
+                    completedCombinations)));
+            numTournaments.add(evaluator.getNumTournaments());
+            return evaluator;
+        }, numRecordedBatches::sum);
+        int numRanges = worker.run(coordinatorPort);
+        System.out.printf("Evaluated %d ranges with %d tournaments for the coordinator%n",
+                numRanges, numTournaments.sum());
+    }
+
+    /**
+     * Hand the combinations that are not completed yet to worker processes and merge their results.
+     */
+    private void coordinate(long numCombinations, String runKey) throws IOException, InterruptedException {
+        var ranges = SweepCoordinator.partition(completedCombinations, numCombinations, rangeSize);
+        coordinator = new SweepCoordinator(listenPort, runKey, ranges,
+                (int) TimeUnit.SECONDS.toMillis(workerTimeout), this::merge);
+        try {
+            System.out.printf("Listening on port %d for workers, %d ranges of up to %d combinations%n",
+                    coordinator.getPort(), ranges.size(), rangeSize);
+            coordinator.awaitCompletion();
+        } finally {
+            coordinator.close();
+        }
+    }
+
+    private void merge(SweepCoordinator.Range range, DataInput aggregates) throws IOException {
+        checkpointLock.readLock().lock();
+        try {
+            evaluator.mergeAggregates(aggregates);
+            for (long rank = range.getFirst(); rank < range.getEnd(); rank++) {
+                markCompleted((int) rank);
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    private ScheduleSummary summarize(WeightedAssignment weightedAssignment) {
+        var combination = weightedAssignment.getTeamAssignment();
+        if (validate) {
+            return evaluator.summarize(consumer -> scheduler.forEachSchedule(combination, consumer));
+        }
+        return evaluate(weightedAssignment);
+    }
+
+    private ScheduleSummary evaluate(WeightedAssignment weightedAssignment) {
+        var key = weightedAssignment.getCanonicalKey();
+        if (key != null && canonicalResults != null) {
+            long cached = canonicalResults.get(key);
+            if (cached != TranspositionCache.ABSENT) {
+                return CompiledScheduler.unpackSummary(cached);
+            }
+        }
+        var combination = weightedAssignment.getTeamAssignment();
+        var summary = forkDepth > 0
+                ? scheduler.evaluateParallel(combination, forkDepth)
+                : scheduler.evaluate(combination);
+        if (key != null && canonicalResults != null) {
+            canonicalResults.put(key, CompiledScheduler.packSummary(summary));
         }
-        evaluator.summary();
+        return summary;
     }
 
-    private void process(Map<Match, List<Team>> combination) {
-        var allSchedules = scheduler.findAllSchedules(combination);
-        evaluator.process(allSchedules);
+    private ScheduleSummary summarize(SeedingBatch batch, int seeding) {
+        long start = System.nanoTime();
+        var summary = summarize(toWeightedAssignment(batch, seeding));
+        metrics.recordSeeding(summary, System.nanoTime() - start);
+        return summary;
     }
 
-    private void process(List<Map<Match, List<Team>>> teamAssignmentCombinations) {
-        for (var combination : teamAssignmentCombinations) {
-            process(combination);
+    private SeedingGenerator seedingGenerator(SeedingGenerator generator) {
+        if (canonical) {
+            generator.setCanonicalKey(seeding ->
+                    scheduler.getSymmetry().canonicalKey(tournament.toTeamAssignment(seedingSlots, seeding, 0)));
         }
+        return generator;
     }
 
-    private List<Integer> toList(int[] nextSet) {
-        List<Integer> teamCombinations = new ArrayList<>(nextSet.length);
-        for (int id : nextSet) {
-            teamCombinations.add(id);
+    private WeightedAssignment toWeightedAssignment(SeedingBatch batch, int seeding) {
+        var teamAssignment = tournament.toTeamAssignment(seedingSlots, batch.getTeamIds(), seeding * seedingSlots.length);
+        var combination = batch.getCombination();
+        int index = batch.getFirstSeeding() + seeding;
+        var key = combination.getCanonicalKey(index);
+        if (key == null && canonical) {
+            key = scheduler.getSymmetry().canonicalKey(teamAssignment);
         }
-        return teamCombinations;
+        return new WeightedAssignment(teamAssignment, combination.getWeight(index), key);
     }
 
+    private void process(SeedingBatch batch) {
+        var summaries = new ScheduleSummary[batch.getNumSeedings()];
+        for (int i = 0; i < summaries.length; i++) {
+            summaries[i] = summarize(batch, i);
+        }
+        record(batch, summaries);
+    }
+
+    private void record(SeedingBatch batch, ScheduleSummary[] summaries) {
+        var combination = batch.getCombination();
+        if (combination.record(batch.getFirstSeeding(), batch.getTeamIds(), summaries)) {
+            complete(combination);
+        }
+        numRecordedBatches.increment();
+    }
 
+    /**
+     * Record the results of a combination at once, so a checkpoint never contains a partial combination.
+     */
+    @SneakyThrows
+    private void complete(SeedingBatch.Combination combination) {
+        checkpointLock.readLock().lock();
+        try {
+            var summaries = combination.getSummaries();
+            for (int i = 0; i < summaries.length; i++) {
+                if (numSamples > 0) {
+                    evaluator.processSample(summaries[i], combination.getIndex());
+                } else {
+                    evaluator.process(summaries[i], combination.getWeight(i));
+                }
+            }
+            if (resultStore != null) {
+                resultStore.append(combination.getIndex(), combination.getTeamIds(), combination.getSummaries());
+            }
+            if (newlyCompletedCombinations.length() > 0) {
+                markCompleted(combination.getIndex());
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    private void markCompleted(int index) {
+        long bit = 1L << (index % 64);
+        newlyCompletedCombinations.getAndAccumulate(index / 64, bit, (word, b) -> word | b);
+    }
+
+    private String pipelineStatistics() {
+        return String.format(" | pipeline: %d/%d batches queued, producer stalled %d ms, workers stalled %d ms",
+                metrics.getQueueDepth(),
+                queueCapacity,
+                TimeUnit.NANOSECONDS.toMillis(producerStallNanos.sum()),
+                TimeUnit.NANOSECONDS.toMillis(workerStallNanos.sum()));
+    }
+
+    private String sweepStatistics() {
+        return String.format(" | sweep: %d workers, %d/%d ranges remaining, %d reassigned",
+                coordinator.getNumWorkers(),
+                coordinator.getNumRemaining(),
+                coordinator.getNumRanges(),
+                coordinator.getNumReassigned());
+    }
+
+    @SneakyThrows
+    private void writeCheckpoint() {
+        byte[] data;
+        checkpointLock.writeLock().lock();
+        try {
+            long[] words = new long[newlyCompletedCombinations.length()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = newlyCompletedCombinations.get(i);
+            }
+            var completed = BitSet.valueOf(words);
+            completed.or(completedCombinations);
+            data = checkpoint.encode(completed, evaluator);
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        if (resultStore != null) {
+            resultStore.sync();
+        }
+        checkpoint.write(data);
+    }
+
+    /**
+     * The caller must hold a fork/join slot, it is released once the batch is recorded.
+     */
+    private void submitForkJoin(SeedingBatch batch) {
+        forkJoinPool.execute(() -> {
+            try {
+                if (failure.get() != null) {
+                    return;
+                }
+                var tasks = IntStream.range(0, batch.getNumSeedings())
+                        .mapToObj(i -> ForkJoinTask.adapt((Callable<ScheduleSummary>) () ->
+                                summarize(batch, i)))
+                        .collect(Collectors.toList());
+                ForkJoinTask.invokeAll(tasks);
+                record(batch, tasks.stream().map(ForkJoinTask::join).toArray(ScheduleSummary[]::new));
+            } catch (RuntimeException | Error e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                forkJoinSlots.release();
+            }
+        });
+    }
+
+    /**
+     * After a failure, workers keep taking batches without processing them, so the producer never blocks
+     * on a full queue and every worker still receives {@link #END_OF_WORK}.
+     */
     private class WorkerThread implements Runnable {
         @Override
         public void run() {
-            do {
-                try {
-                    Optional.ofNullable(workerQueue.pollFirst(1, TimeUnit.SECONDS))
-                            .ifPresent(Processor.this::process);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+            try {
+                while (true) {
+                    long stallStart = System.nanoTime();
+                    var batch = workerQueue.takeFirst();
+                    workerStallNanos.add(System.nanoTime() - stallStart);
+                    if (batch == END_OF_WORK) {
+                        return;
+                    }
+                    if (failure.get() != null) {
+                        continue;
+                    }
+                    try {
+                        process(batch);
+                    } catch (RuntimeException | Error e) {
+                        failure.compareAndSet(null, e);
+                    }
                 }
-            } while (!workerQueue.isEmpty());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
     }
 
     private class StatsThread implements Runnable {
         @Override
         public void run() {
-            evaluator.printStatistics();
+            // fork/join threads that were idle for a while end and are replaced
+            evaluator.foldEndedStripes();
+            metrics.foldEndedStripes();
+            metrics.sample();
+            evaluator.printStatistics(coordinator != null ? sweepStatistics() : pipelineStatistics());
+        }
+    }
+
+    private class CheckpointThread implements Runnable {
+        @Override
+        public void run() {
+            writeCheckpoint();
         }
     }
 
@@ -0,0 +1,276 @@
+package edu.robocup.ssl;
+
+import lombok.Setter;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters of a {@link Processor} run, exposed as an MBean and in the Prometheus text format.
+ * <p>
+ * Like the {@link Evaluator}, every worker thread records into its own stripe, so recording never contends.
+ * The seeding durations are kept in a histogram with power of two microsecond buckets.
+ * The stripes of workers that ended are folded into one by {@link #foldEndedStripes()}.
+ */
+public class ProcessorMetrics implements ProcessorMetricsMBean {
+    static final int NUM_BUCKETS = 25;
+    private static final String OBJECT_NAME = "edu.robocup.ssl:type=Processor";
+
+    /**
+     * Replaced as a whole, so readers always see every count exactly once while stripes are folded.
+     */
+    private volatile List<Stripe> stripes = List.of();
+    private final ThreadLocal<Stripe> localStripe = ThreadLocal.withInitial(this::newStripe);
+    @Setter
+    private IntSupplier queueDepth = () -> 0;
+
+    private long lastSample = System.nanoTime();
+    private long lastNumSeedings;
+    private long lastNumSchedules;
+    private volatile double seedingsPerSecond;
+    private volatile double schedulesPerSecond;
+
+    /**
+     * Record the result of a seeding evaluated by the current thread.
+     */
+    public void recordSeeding(ScheduleSummary summary, long nanos) {
+        var stripe = localStripe.get();
+        stripe.numSeedings++;
+        stripe.numSchedules += summary.getNumSchedules();
+        stripe.numNodes += summary.getNumNodes();
+        stripe.busyNanos += nanos;
+        int bucket = Math.min(NUM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos / 1000));
+        stripe.durationCounts.lazySet(bucket, stripe.durationCounts.get(bucket) + 1);
+    }
+
+    /**
+     * Update the rates from the counters, called periodically by a single thread.
+     */
+    public void sample() {
+        long now = System.nanoTime();
+        long numSeedings = getNumSeedings();
+        long numSchedules = getNumSchedules();
+        double elapsed = Math.max(1, now - lastSample) / 1e9;
+        seedingsPerSecond = (numSeedings - lastNumSeedings) / elapsed;
+        schedulesPerSecond = (numSchedules - lastNumSchedules) / elapsed;
+        lastSample = now;
+        lastNumSeedings = numSeedings;
+        lastNumSchedules = numSchedules;
+    }
+
+    public void register() throws JMException {
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var name = new ObjectName(OBJECT_NAME);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(this, name);
+    }
+
+    public void unregister() throws JMException {
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var name = new ObjectName(OBJECT_NAME);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+    }
+
+    @Override
+    public long getNumSeedings() {
+        return stripes.stream().mapToLong(s -> s.numSeedings).sum();
+    }
+
+    @Override
+    public long getNumSchedules() {
+        return stripes.stream().mapToLong(s -> s.numSchedules).sum();
+    }
+
+    @Override
+    public long getNumSearchNodes() {
+        return stripes.stream().mapToLong(s -> s.numNodes).sum();
+    }
+
+    @Override
+    public double getSeedingsPerSecond() {
+        return seedingsPerSecond;
+    }
+
+    @Override
+    public double getSchedulesPerSecond() {
+        return schedulesPerSecond;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    @Override
+    public int getNumWorkers() {
+        return (int) stripes.stream().filter(s -> s.owner != null).count();
+    }
+
+    @Override
+    public long getWorkerBusyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(stripes.stream().mapToLong(s -> s.busyNanos).sum());
+    }
+
+    @Override
+    public long getWorkerIdleMillis() {
+        long now = System.nanoTime();
+        return TimeUnit.NANOSECONDS.toMillis(stripes.stream().mapToLong(s -> s.idleNanos(now)).sum());
+    }
+
+    @Override
+    public long getHeapUsedBytes() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Override
+    public long getHeapCommittedBytes() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getCommitted();
+    }
+
+    /**
+     * Number of seedings per duration bucket, bucket {@code i} counts durations below {@code 2^i} microseconds
+     * that do not fit into the previous bucket.
+     */
+    public long[] getDurationCounts() {
+        long[] counts = new long[NUM_BUCKETS];
+        for (var stripe : stripes) {
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                counts[i] += stripe.durationCounts.get(i);
+            }
+        }
+        return counts;
+    }
+
+    public String toPrometheusText() {
+        var text = new StringBuilder();
+        metric(text, "ssl_seedings_total", "counter", "Evaluated seedings", getNumSeedings());
+        metric(text, "ssl_schedules_total", "counter", "Schedules of all evaluated seedings", getNumSchedules());
+        metric(text, "ssl_search_nodes_total", "counter", "Expanded search nodes", getNumSearchNodes());
+        metric(text, "ssl_seedings_per_second", "gauge", "Seedings per second in the last interval", seedingsPerSecond);
+        metric(text, "ssl_schedules_per_second", "gauge", "Schedules per second in the last interval", schedulesPerSecond);
+        metric(text, "ssl_queue_depth", "gauge", "Batches waiting for a worker", getQueueDepth());
+        metric(text, "ssl_heap_used_bytes", "gauge", "Used heap memory", getHeapUsedBytes());
+        metric(text, "ssl_heap_committed_bytes", "gauge", "Committed heap memory", getHeapCommittedBytes());
+
+        long now = System.nanoTime();
+        header(text, "ssl_worker_busy_seconds_total", "counter", "Time a worker spent evaluating seedings");
+        for (var stripe : stripes) {
+            if (stripe.owner != null) {
+                sample(text, "ssl_worker_busy_seconds_total", "{worker=\"" + stripe.worker + "\"}", stripe.busyNanos / 1e9);
+            }
+        }
+        header(text, "ssl_worker_idle_seconds_total", "counter", "Time a worker spent waiting since its first seeding");
+        for (var stripe : stripes) {
+            if (stripe.owner != null) {
+                sample(text, "ssl_worker_idle_seconds_total", "{worker=\"" + stripe.worker + "\"}", stripe.idleNanos(now) / 1e9);
+            }
+        }
+
+        header(text, "ssl_seeding_duration_seconds", "histogram", "Time to evaluate a seeding");
+        long[] counts = getDurationCounts();
+        long cumulative = 0;
+        for (int i = 0; i < NUM_BUCKETS - 1; i++) {
+            cumulative += counts[i];
+            sample(text, "ssl_seeding_duration_seconds_bucket", "{le=\"" + (1L << i) / 1e6 + "\"}", cumulative);
+        }
+        cumulative += counts[NUM_BUCKETS - 1];
+        sample(text, "ssl_seeding_duration_seconds_bucket", "{le=\"+Inf\"}", cumulative);
+        sample(text, "ssl_seeding_duration_seconds_sum", "", stripes.stream().mapToLong(s -> s.busyNanos).sum() / 1e9);
+        sample(text, "ssl_seeding_duration_seconds_count", "", cumulative);
+        return text.toString();
+    }
+
+    private static void metric(StringBuilder text, String name, String type, String help, double value) {
+        header(text, name, type, help);
+        sample(text, name, "", value);
+    }
+
+    private static void header(StringBuilder text, String name, String type, String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder text, String name, String labels, double value) {
+        text.append(name).append(labels).append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            text.append((long) value);
+        } else {
+            text.append(value);
+        }
+        text.append('\n');
+    }
+
+    private synchronized Stripe newStripe() {
+        var stripe = new Stripe(Thread.currentThread().getName(), Thread.currentThread());
+        var newStripes = new ArrayList<>(stripes);
+        newStripes.add(stripe);
+        stripes = List.copyOf(newStripes);
+        return stripe;
+    }
+
+    /**
+     * Fold the counters of worker threads that ended into a single stripe. Pools that are replaced, like the pool
+     * of every range of a coordinator, would otherwise leave one stripe per thread behind.
+     */
+    public synchronized void foldEndedStripes() {
+        long now = System.nanoTime();
+        var folded = new Stripe("ended", null);
+        List<Stripe> newStripes = new ArrayList<>();
+        newStripes.add(folded);
+        for (var stripe : stripes) {
+            if (stripe.owner == null || !stripe.owner.isAlive()) {
+                folded.add(stripe, now);
+            } else {
+                newStripes.add(stripe);
+            }
+        }
+        stripes = List.copyOf(newStripes);
+    }
+
+    /**
+     * Counters of a single worker. Fields are only written by the owning thread,
+     * volatile makes them visible to the threads reading the metrics.
+     * The stripe of folded workers has no owner and is never written after it is published.
+     */
+    private static class Stripe {
+        final String worker;
+        final Thread owner;
+        final long start = System.nanoTime();
+        volatile long numSeedings;
+        volatile long numSchedules;
+        volatile long numNodes;
+        volatile long busyNanos;
+        volatile long foldedIdleNanos;
+        final AtomicLongArray durationCounts = new AtomicLongArray(NUM_BUCKETS);
+
+        Stripe(String worker, Thread owner) {
+            this.worker = worker;
+            this.owner = owner;
+        }
+
+        long idleNanos(long now) {
+            return owner == null ? foldedIdleNanos : Math.max(0, now - start - busyNanos);
+        }
+
+        void add(Stripe other, long now) {
+            numSeedings += other.numSeedings;
+            numSchedules += other.numSchedules;
+            numNodes += other.numNodes;
+            busyNanos += other.busyNanos;
+            foldedIdleNanos += other.idleNanos(now);
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                durationCounts.lazySet(i, durationCounts.get(i) + other.durationCounts.get(i));
+            }
+        }
+    }
+}
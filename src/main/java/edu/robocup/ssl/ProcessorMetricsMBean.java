@@ -0,0 +1,28 @@
+package edu.robocup.ssl;
+
+/**
+ * JMX view of the {@link ProcessorMetrics}.
+ */
+public interface ProcessorMetricsMBean {
+    long getNumSeedings();
+
+    long getNumSchedules();
+
+    long getNumSearchNodes();
+
+    double getSeedingsPerSecond();
+
+    double getSchedulesPerSecond();
+
+    int getQueueDepth();
+
+    int getNumWorkers();
+
+    long getWorkerBusyMillis();
+
+    long getWorkerIdleMillis();
+
+    long getHeapUsedBytes();
+
+    long getHeapCommittedBytes();
+}
@@ -0,0 +1,59 @@
+package edu.robocup.ssl;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Follows a running tournament: keeps the loaded bracket, the team assignment and the played matches,
+ * and re-evaluates only the outcomes that are still possible after every result.
+ * With a transposition cache set on the scheduler, subtrees after the last played match are reused between updates.
+ */
+public class Replanner {
+    private final Scheduler scheduler;
+    private final Map<Match, List<Team>> teamAssignment;
+    private final Map<String, MatchResult> results = new LinkedHashMap<>();
+    @Getter
+    private ScheduleSummary summary;
+
+    public Replanner(Scheduler scheduler, Map<Match, List<Team>> teamAssignment) {
+        this.scheduler = scheduler;
+        this.teamAssignment = teamAssignment;
+        this.summary = scheduler.evaluate(teamAssignment, List.of());
+    }
+
+    /**
+     * Add or correct the result of a match and evaluate the remaining outcomes.
+     *
+     * @throws IllegalArgumentException if no outcome agrees with the results, the result is not recorded then
+     */
+    public ScheduleSummary record(MatchResult result) {
+        var previous = results.put(result.getMatch(), result);
+        try {
+            var newSummary = scheduler.evaluate(teamAssignment, results.values());
+            if (newSummary.getNumSchedules() == 0) {
+                throw new IllegalArgumentException("No outcome agrees with the result of " + result.getMatch());
+            }
+            summary = newSummary;
+            return summary;
+        } catch (RuntimeException e) {
+            if (previous != null) {
+                results.put(result.getMatch(), previous);
+            } else {
+                results.remove(result.getMatch());
+            }
+            throw e;
+        }
+    }
+
+    public List<MatchResult> getResults() {
+        return new ArrayList<>(results.values());
+    }
+
+    public List<Schedule> findSchedules(int limit) {
+        return scheduler.findSchedules(teamAssignment, results.values(), limit);
+    }
+}
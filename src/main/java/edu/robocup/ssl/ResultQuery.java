@@ -0,0 +1,61 @@
+package edu.robocup.ssl;
+
+import lombok.SneakyThrows;
+import picocli.CommandLine;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Collectors;
+
+/**
+ * Queries the per-seeding results stored by {@link Processor} without evaluating anything again.
+ */
+@CommandLine.Command(name = "query")
+public class ResultQuery implements Runnable {
+
+    @CommandLine.Option(names = {"-r", "--results"}, required = true,
+            description = "Result store written by the process command")
+    private Path resultsFile;
+
+    @CommandLine.Option(names = {"-t", "--teamsInputFile"})
+    private Path teamsInputFile = Paths.get("input.csv");
+
+    @CommandLine.Option(names = {"-d", "--tournamentDiagramFile"})
+    private Path tournamentDiagramFile = Paths.get("DD8.puml");
+
+    @CommandLine.Option(names = {"-s", "--initialStart"})
+    private int initialStart = 35;
+
+    @CommandLine.Option(names = {"-w", "--worst"},
+            description = "Print this many seedings with the largest end time")
+    private int worst = 10;
+
+    @CommandLine.Option(names = {"--endTimeAbove"},
+            description = "Print all seedings with an end time above this one instead of the worst seedings")
+    private Integer endTimeAbove;
+
+    @SneakyThrows
+    @Override
+    public void run() {
+        var teams = Team.loadTeams(teamsInputFile);
+        var scheduler = Scheduler.load(tournamentDiagramFile, initialStart);
+        var tournament = new Tournament(scheduler, teams);
+        var slots = tournament.calcSeedingSlots();
+        try (var store = ResultStore.openReadOnly(resultsFile, slots.length)) {
+            var records = endTimeAbove != null ? store.endTimeAbove(endTimeAbove) : store.worst(worst);
+            System.out.printf("%d of %d seedings%n", records.size(), store.size());
+            for (var record : records) {
+                var seeding = tournament.toTeamAssignment(slots, record.getTeamIds(), 0).entrySet().stream()
+                        .sorted(Comparator.comparing(e -> e.getKey().getName()))
+                        .map(e -> e.getKey().getName() + ": " + e.getValue().stream()
+                                .map(Team::getName)
+                                .collect(Collectors.joining(" vs. ")))
+                        .collect(Collectors.joining(", "));
+                System.out.printf("End time: %d, fields: %d, schedules: %d, combination %d: %s%n",
+                        record.getMaxEndTime(), record.getMaxNumFields(), record.getNumSchedules(),
+                        record.getCombination(), seeding);
+            }
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package edu.robocup.ssl;
+
+import lombok.Value;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Append-only, memory-mapped file with one fixed-width record per evaluated seeding:
+ * the combination index, the team id of every seeding slot, the maximum end time, the maximum number of fields
+ * and the number of schedules.
+ * <p>
+ * The header holds the number of committed records, records after it are ignored when the file is opened again.
+ * A small index in a sibling {@code .idx} file stores the maximum end time and number of fields of every block of
+ * {@value #BLOCK_SIZE} records, so queries skip blocks that can not contain a match.
+ * <p>
+ * A store opened with {@link #openReadOnly(Path, int)} maps the file as it is and never writes to it or its index,
+ * so it can be queried while another process appends to it.
+ * <p>
+ * The records are mapped in segments of at most {@value #SEGMENT_SIZE} bytes that hold whole records, so a store
+ * can grow past the 2 GB that a single mapping can address.
+ */
+public class ResultStore implements Closeable {
+    private static final int MAGIC = 0x5353_4c52;
+    private static final int INDEX_MAGIC = 0x5353_4c49;
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 32;
+    private static final int COUNT_OFFSET = 16;
+    static final int BLOCK_SIZE = 4096;
+    private static final int GROWTH = 16 * BLOCK_SIZE;
+    static final int SEGMENT_SIZE = 1 << 30;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int numSlots;
+    private final int recordSize;
+    private final boolean readOnly;
+    private final int segmentCapacity;
+    private MappedByteBuffer header;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private long capacity;
+    private long count;
+    private short[] blockMaxEndTime = new short[0];
+    private short[] blockMaxNumFields = new short[0];
+
+    private ResultStore(Path file, FileChannel channel, int numSlots, boolean readOnly, int segmentSize) {
+        this.file = file;
+        this.channel = channel;
+        this.numSlots = numSlots;
+        this.readOnly = readOnly;
+        this.recordSize = Integer.BYTES + numSlots + 2 * Short.BYTES + Integer.BYTES;
+        this.segmentCapacity = Math.max(1, segmentSize / recordSize);
+    }
+
+    /**
+     * Open an existing store or create a new one for seedings with the given number of slots.
+     */
+    public static ResultStore open(Path file, int numSlots) throws IOException {
+        return open(file, numSlots, SEGMENT_SIZE);
+    }
+
+    static ResultStore open(Path file, int numSlots, int segmentSize) throws IOException {
+        var channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return initOrClose(new ResultStore(file, channel, numSlots, false, segmentSize));
+    }
+
+    /**
+     * Open an existing store for queries only. Records appended by a writer after opening are not visible.
+     */
+    public static ResultStore openReadOnly(Path file, int numSlots) throws IOException {
+        return openReadOnly(file, numSlots, SEGMENT_SIZE);
+    }
+
+    static ResultStore openReadOnly(Path file, int numSlots, int segmentSize) throws IOException {
+        var channel = FileChannel.open(file, StandardOpenOption.READ);
+        return initOrClose(new ResultStore(file, channel, numSlots, true, segmentSize));
+    }
+
+    private static ResultStore initOrClose(ResultStore store) throws IOException {
+        try {
+            store.init();
+        } catch (IOException e) {
+            store.channel.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private void init() throws IOException {
+        boolean exists = channel.size() >= HEADER_SIZE;
+        if (!exists && readOnly) {
+            throw new IOException(file + " is not a result store");
+        }
+        long existingCapacity = exists ? (channel.size() - HEADER_SIZE) / recordSize : 0;
+        header = channel.map(mapMode(), 0, HEADER_SIZE);
+        map(readOnly ? existingCapacity : Math.max(existingCapacity, GROWTH));
+        if (!exists) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, numSlots);
+            header.putLong(COUNT_OFFSET, 0);
+            return;
+        }
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException(file + " is not a result store of this version");
+        }
+        if (header.getInt(8) != numSlots) {
+            throw new IOException(file + " stores seedings with " + header.getInt(8) + " slots, not " + numSlots);
+        }
+        count = Math.min(header.getLong(COUNT_OFFSET), capacity);
+        loadIndex();
+    }
+
+    public synchronized long size() {
+        return count;
+    }
+
+    public int getNumSlots() {
+        return numSlots;
+    }
+
+    /**
+     * Append the results of the seedings stored consecutively in {@code teamIds}.
+     */
+    public synchronized void append(int combination, int[] teamIds, ScheduleSummary[] summaries) throws IOException {
+        requireWritable();
+        if (count + summaries.length > capacity) {
+            map(Math.max(capacity + GROWTH, count + summaries.length));
+        }
+        for (int i = 0; i < summaries.length; i++) {
+            var buffer = segment(count);
+            int position = position(count);
+            buffer.putInt(position, combination);
+            for (int slot = 0; slot < numSlots; slot++) {
+                buffer.put(position + Integer.BYTES + slot, (byte) teamIds[i * numSlots + slot]);
+            }
+            var summary = summaries[i];
+            buffer.putShort(position + Integer.BYTES + numSlots, (short) summary.getMaxEndTime());
+            buffer.putShort(position + Integer.BYTES + numSlots + Short.BYTES, (short) summary.getMaxNumFields());
+            buffer.putInt(position + Integer.BYTES + numSlots + 2 * Short.BYTES, summary.getNumSchedules());
+            index(count, summary.getMaxEndTime(), summary.getMaxNumFields());
+            count++;
+        }
+        header.putLong(COUNT_OFFSET, count);
+    }
+
+    public synchronized Record get(long index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Record " + index + " of " + count);
+        }
+        var buffer = segment(index);
+        int position = position(index);
+        int[] teamIds = new int[numSlots];
+        for (int slot = 0; slot < numSlots; slot++) {
+            teamIds[slot] = buffer.get(position + Integer.BYTES + slot);
+        }
+        return new Record(index,
+                buffer.getInt(position),
+                teamIds,
+                buffer.getShort(position + Integer.BYTES + numSlots),
+                buffer.getShort(position + Integer.BYTES + numSlots + Short.BYTES),
+                buffer.getInt(position + Integer.BYTES + numSlots + 2 * Short.BYTES));
+    }
+
+    /**
+     * Drop the records after the last record of a completed combination. Combinations are appended as a whole
+     * before they are marked as completed, so only combinations that a checkpoint missed are dropped.
+     */
+    public synchronized void truncate(BitSet completedCombinations) {
+        long newCount = count;
+        while (newCount > 0 && !completedCombinations.get(segment(newCount - 1).getInt(position(newCount - 1)))) {
+            newCount--;
+        }
+        truncate(newCount);
+    }
+
+    public synchronized void truncate(long newCount) {
+        requireWritable();
+        count = Math.min(count, newCount);
+        header.putLong(COUNT_OFFSET, count);
+        int numBlocks = numBlocks(count);
+        blockMaxEndTime = Arrays.copyOf(blockMaxEndTime, numBlocks);
+        blockMaxNumFields = Arrays.copyOf(blockMaxNumFields, numBlocks);
+        if (count % BLOCK_SIZE != 0) {
+            rebuildIndex(numBlocks - 1);
+        }
+    }
+
+    /**
+     * The records with the largest end time, ties broken by the number of fields and then by the order they were
+     * appended, worst first.
+     */
+    public synchronized List<Record> worst(int n) {
+        Comparator<Record> order = Comparator.comparingInt(Record::getMaxEndTime)
+                .thenComparingInt(Record::getMaxNumFields)
+                .thenComparing(Comparator.comparingLong(Record::getIndex).reversed());
+        var candidates = new PriorityQueue<>(order);
+        if (n <= 0) {
+            return new ArrayList<>();
+        }
+        var blocks = IntStream.range(0, blockMaxEndTime.length).boxed()
+                .sorted(Comparator.comparingInt((Integer b) -> blockMaxEndTime[b]).reversed())
+                .collect(Collectors.toList());
+        for (int block : blocks) {
+            if (candidates.size() == n && blockMaxEndTime[block] < candidates.peek().getMaxEndTime()) {
+                break;
+            }
+            for (long i = (long) block * BLOCK_SIZE; i < Math.min(count, (long) (block + 1) * BLOCK_SIZE); i++) {
+                var record = get(i);
+                if (candidates.size() < n) {
+                    candidates.add(record);
+                } else if (order.compare(record, candidates.peek()) > 0) {
+                    candidates.poll();
+                    candidates.add(record);
+                }
+            }
+        }
+        var result = new ArrayList<>(candidates);
+        result.sort(order.reversed());
+        return result;
+    }
+
+    /**
+     * All records with an end time above the given one, in the order they were appended.
+     */
+    public synchronized List<Record> endTimeAbove(int maxEndTime) {
+        List<Record> result = new ArrayList<>();
+        for (int block = 0; block < blockMaxEndTime.length; block++) {
+            if (blockMaxEndTime[block] <= maxEndTime) {
+                continue;
+            }
+            for (long i = (long) block * BLOCK_SIZE; i < Math.min(count, (long) (block + 1) * BLOCK_SIZE); i++) {
+                if (segment(i).getShort(position(i) + Integer.BYTES + numSlots) > maxEndTime) {
+                    result.add(get(i));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Flush the records to disk and store the index.
+     */
+    public synchronized void sync() throws IOException {
+        requireWritable();
+        for (var segment : segments) {
+            segment.force();
+        }
+        header.force();
+        var indexFile = indexFile();
+        var tmpFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (var out = new DataOutputStream(Files.newOutputStream(tmpFile))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeLong(count);
+            out.writeInt(blockMaxEndTime.length);
+            for (int block = 0; block < blockMaxEndTime.length; block++) {
+                out.writeShort(blockMaxEndTime[block]);
+                out.writeShort(blockMaxNumFields[block]);
+            }
+        }
+        Files.move(tmpFile, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!readOnly) {
+            sync();
+            channel.truncate(HEADER_SIZE + count * recordSize);
+        }
+        header = null;
+        segments.clear();
+        channel.close();
+    }
+
+    private void requireWritable() {
+        if (readOnly) {
+            throw new IllegalStateException("Result store " + file + " is opened read-only");
+        }
+    }
+
+    private FileChannel.MapMode mapMode() {
+        return readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+    }
+
+    /**
+     * Map enough segments for the given number of records. Full segments stay mapped, only the last one is remapped
+     * when it grows.
+     */
+    private void map(long newCapacity) throws IOException {
+        int numSegments = (int) ((newCapacity + segmentCapacity - 1) / segmentCapacity);
+        for (int segment = Math.max(0, segments.size() - 1); segment < numSegments; segment++) {
+            long first = (long) segment * segmentCapacity;
+            long numRecords = Math.min(segmentCapacity, newCapacity - first);
+            var buffer = channel.map(mapMode(), HEADER_SIZE + first * recordSize, numRecords * recordSize);
+            if (segment < segments.size()) {
+                segments.set(segment, buffer);
+            } else {
+                segments.add(buffer);
+            }
+        }
+        capacity = newCapacity;
+    }
+
+    private ByteBuffer segment(long index) {
+        return segments.get((int) (index / segmentCapacity));
+    }
+
+    /**
+     * Position of a record within its {@link #segment(long)}.
+     */
+    private int position(long index) {
+        return (int) (index % segmentCapacity) * recordSize;
+    }
+
+    private Path indexFile() {
+        return file.resolveSibling(file.getFileName() + ".idx");
+    }
+
+    private static int numBlocks(long count) {
+        return (int) ((count + BLOCK_SIZE - 1) / BLOCK_SIZE);
+    }
+
+    private void index(long index, int maxEndTime, int maxNumFields) {
+        int block = (int) (index / BLOCK_SIZE);
+        if (block >= blockMaxEndTime.length) {
+            blockMaxEndTime = Arrays.copyOf(blockMaxEndTime, block + 1);
+            blockMaxNumFields = Arrays.copyOf(blockMaxNumFields, block + 1);
+        }
+        blockMaxEndTime[block] = (short) Math.max(blockMaxEndTime[block], maxEndTime);
+        blockMaxNumFields[block] = (short) Math.max(blockMaxNumFields[block], maxNumFields);
+    }
+
+    /**
+     * Use the complete blocks of the stored index and recompute the remaining ones from the records.
+     */
+    private void loadIndex() throws IOException {
+        int validBlocks = 0;
+        var indexFile = indexFile();
+        if (Files.exists(indexFile)) {
+            try (var in = new DataInputStream(Files.newInputStream(indexFile))) {
+                if (in.readInt() == INDEX_MAGIC) {
+                    long indexedCount = in.readLong();
+                    int numBlocks = in.readInt();
+                    blockMaxEndTime = new short[numBlocks];
+                    blockMaxNumFields = new short[numBlocks];
+                    for (int block = 0; block < numBlocks; block++) {
+                        blockMaxEndTime[block] = in.readShort();
+                        blockMaxNumFields[block] = in.readShort();
+                    }
+                    validBlocks = (int) (Math.min(indexedCount, count) / BLOCK_SIZE);
+                }
+            }
+        }
+        blockMaxEndTime = Arrays.copyOf(blockMaxEndTime, numBlocks(count));
+        blockMaxNumFields = Arrays.copyOf(blockMaxNumFields, numBlocks(count));
+        rebuildIndex(validBlocks);
+    }
+
+    private void rebuildIndex(int firstBlock) {
+        for (int block = firstBlock; block < blockMaxEndTime.length; block++) {
+            blockMaxEndTime[block] = 0;
+            blockMaxNumFields[block] = 0;
+        }
+        for (long i = (long) firstBlock * BLOCK_SIZE; i < count; i++) {
+            var buffer = segment(i);
+            int position = position(i);
+            index(i, buffer.getShort(position + Integer.BYTES + numSlots),
+                    buffer.getShort(position + Integer.BYTES + numSlots + Short.BYTES));
+        }
+    }
+
+    @Value
+    public static class Record {
+        long index;
+        int combination;
+        int[] teamIds;
+        int maxEndTime;
+        int maxNumFields;
+        int numSchedules;
+    }
+}
@@ -1,7 +1,5 @@
 package edu.robocup.ssl;
 
-import lombok.Value;
-
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -9,21 +7,40 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-@Value
+/**
+ * Either backed by a map of match assignments or by a {@link PackedSchedule}.
+ * For packed schedules, the assignment map is only created when it is requested, e.g. for printing.
+ */
 public class Schedule {
-    Map<String, MatchAssignment> assignmentMap;
+    private final PackedSchedule packed;
+    private Map<String, MatchAssignment> assignmentMap;
 
     public Schedule(Map<String, MatchAssignment> assignmentMap) {
+        this.packed = null;
         this.assignmentMap = Collections.unmodifiableMap(assignmentMap);
     }
 
+    public Schedule(PackedSchedule packed) {
+        this.packed = packed;
+    }
+
+    public Map<String, MatchAssignment> getAssignmentMap() {
+        if (assignmentMap == null) {
+            assignmentMap = Collections.unmodifiableMap(packed.toAssignmentMap());
+        }
+        return assignmentMap;
+    }
+
     public Schedule withNewAssignment(MatchAssignment matchAssignment) {
-        Map<String, MatchAssignment> newAssignment = new HashMap<>(assignmentMap);
+        Map<String, MatchAssignment> newAssignment = new HashMap<>(getAssignmentMap());
         newAssignment.put(matchAssignment.getMatch().getName(), matchAssignment);
         return new Schedule(newAssignment);
     }
 
     public int findMaxEndTime() {
+        if (packed != null) {
+            return packed.findMaxEndTime();
+        }
         return assignmentMap.values().stream()
                 .mapToInt(MatchAssignment::getStartTime)
                 .max()
@@ -31,6 +48,9 @@ public class Schedule {
     }
 
     public int findMaxNumFields() {
+        if (packed != null) {
+            return packed.findMaxNumFields();
+        }
         return assignmentMap.values().stream()
                 .collect(Collectors.groupingBy(MatchAssignment::getStartTime))
                 .values()
@@ -41,7 +61,7 @@ public class Schedule {
     }
 
     public void print() {
-        assignmentMap.values().stream()
+        getAssignmentMap().values().stream()
                 .filter(m -> m.getStartTime() != null)
                 .sorted(Comparator.comparing(MatchAssignment::getStartTime))
                 .forEach(m -> System.out.printf("%6s: %3d|%2d|%2d %20s vs. %-20s %02d-%02d | %02d-%02d%n",
@@ -56,4 +76,19 @@ public class Schedule {
                         m.getTeams().get(1).getAvailStart(),
                         m.getTeams().get(1).getAvailEnd()));
     }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Schedule && getAssignmentMap().equals(((Schedule) o).getAssignmentMap());
+    }
+
+    @Override
+    public int hashCode() {
+        return getAssignmentMap().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Schedule(assignmentMap=" + getAssignmentMap() + ")";
+    }
 }
@@ -0,0 +1,72 @@
+package edu.robocup.ssl;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+@Value
+@AllArgsConstructor
+public class ScheduleSummary {
+    int numSchedules;
+    int maxEndTime;
+    int maxNumFields;
+    /**
+     * Subtrees skipped by bounded search, their outcomes are still counted as schedules.
+     */
+    @EqualsAndHashCode.Exclude
+    long numPruned;
+    /**
+     * Search nodes expanded to find the result, only counted by the compiled engine.
+     */
+    @EqualsAndHashCode.Exclude
+    long numNodes;
+
+    public ScheduleSummary(int numSchedules, int maxEndTime, int maxNumFields, long numPruned) {
+        this(numSchedules, maxEndTime, maxNumFields, numPruned, 0);
+    }
+
+    public static ScheduleSummary of(List<Schedule> allSchedules) {
+        var accumulator = new Accumulator(true, true);
+        allSchedules.forEach(accumulator);
+        return accumulator.toSummary();
+    }
+
+    public ScheduleSummary merge(ScheduleSummary other) {
+        return new ScheduleSummary(
+                numSchedules + other.numSchedules,
+                Math.max(maxEndTime, other.maxEndTime),
+                Math.max(maxNumFields, other.maxNumFields),
+                numPruned + other.numPruned,
+                numNodes + other.numNodes
+        );
+    }
+
+    @RequiredArgsConstructor
+    public static class Accumulator implements Consumer<Schedule> {
+        private final boolean findMaxEndTime;
+        private final boolean findMaxNumFields;
+
+        private int numSchedules;
+        private int maxEndTime;
+        private int maxNumFields;
+
+        @Override
+        public void accept(Schedule schedule) {
+            numSchedules++;
+            if (findMaxEndTime) {
+                maxEndTime = Math.max(maxEndTime, schedule.findMaxEndTime());
+            }
+            if (findMaxNumFields) {
+                maxNumFields = Math.max(maxNumFields, schedule.findMaxNumFields());
+            }
+        }
+
+        public ScheduleSummary toSummary() {
+            return new ScheduleSummary(numSchedules, maxEndTime, maxNumFields, 0);
+        }
+    }
+}
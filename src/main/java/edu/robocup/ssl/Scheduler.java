@@ -1,43 +1,137 @@
 package edu.robocup.ssl;
 
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 public class Scheduler {
     private final Map<String, MatchAssignment> emptyAssignmentMap;
     private final int initialStart;
+    @Getter
+    private final CompiledBracket bracket;
+    private final CompiledScheduler compiledScheduler;
+    @Getter(lazy = true)
+    private final BracketSymmetry symmetry = new BracketSymmetry(bracket);
+    @Getter(value = AccessLevel.PRIVATE, lazy = true)
+    private final BatchScheduler batchScheduler = new BatchScheduler(bracket, initialStart);
 
+    @Getter
+    private Engine engine = Engine.COMPILED;
+
+    @Getter
+    private int maxFields = 0;
+
+    public enum Engine {
+        LEGACY,
+        COMPILED,
+        /**
+         * Evaluates with {@link BatchScheduler}, everything else is done by the compiled engine.
+         * Opt-in only: it is faster than the legacy engine but slower than the compiled one,
+         * which shares the work of outcomes with a common prefix and supports bounded search and limited fields.
+         */
+        BATCH,
+    }
+
+    /**
+     * Load a tournament diagram or a bracket written by the compile command.
+     */
     public static Scheduler load(Path tournamentDiagramPath, int initialStart) throws IOException {
+        return of(loadBracket(tournamentDiagramPath), initialStart);
+    }
+
+    /**
+     * Compile a tournament diagram or read a bracket written by the compile command.
+     */
+    public static CompiledBracket loadBracket(Path tournamentDiagramPath) throws IOException {
+        if (BracketFile.isBracketFile(tournamentDiagramPath)) {
+            return BracketFile.read(tournamentDiagramPath);
+        }
+        return compile(tournamentDiagramPath);
+    }
+
+    public static CompiledBracket compile(Path tournamentDiagramPath) throws IOException {
         var diagram = UmlComponentDiagram.parse(tournamentDiagramPath);
+        return CompiledBracket.compile(loadMatches(diagram).values());
+    }
 
+    /**
+     * Scheduler for an already compiled bracket, e.g. one that is kept in memory between requests.
+     */
+    public static Scheduler of(CompiledBracket bracket, int initialStart) {
         Map<String, MatchAssignment> emptyAssignmentMap = new HashMap<>();
-        Map<String, Match> matches = loadMatches(diagram);
-        matches.forEach((name, match) -> emptyAssignmentMap.put(name, MatchAssignment.of(match)));
-
-        return new Scheduler(emptyAssignmentMap, initialStart);
+        for (var match : bracket.getMatches()) {
+            emptyAssignmentMap.put(match.getName(), MatchAssignment.of(match));
+        }
+        return new Scheduler(emptyAssignmentMap, initialStart, bracket, new CompiledScheduler(bracket, initialStart));
     }
 
     private static Map<String, Match> loadMatches(UmlComponentDiagram diagram) {
         var matches = diagram.getComponents().stream().collect(Collectors.toMap(s -> s, Match::new));
         diagram.getConnections().stream()
                 .filter(e -> matches.containsKey(e.getFrom()))
-                .forEach(e -> matches.get(e.getFrom()).followUp(matches.get(e.getTo())));
+                .forEach(e -> {
+                    var match = matches.get(e.getFrom());
+                    match.followUp(matches.get(e.getTo()));
+                    if (e.isWinnerPath()) {
+                        match.setWinnerFollowUp(matches.get(e.getTo()));
+                    }
+                });
         diagram.getConnections().stream()
                 .filter(e -> matches.containsKey(e.getFrom()))
                 .forEach(e -> matches.get(e.getTo()).predecessor(matches.get(e.getFrom())));
         return matches;
     }
 
+    public void setBounded(boolean bounded) {
+        compiledScheduler.setBounded(bounded);
+    }
+
+    public void setTranspositionCache(TranspositionCache transpositionCache) {
+        compiledScheduler.setCache(transpositionCache);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the number of fields is limited and the engine does not support it
+     */
+    public void setEngine(Engine engine) {
+        requireFieldsSupported(engine, maxFields);
+        this.engine = engine;
+    }
+
+    /**
+     * Limit the number of concurrent matches to the number of fields, 0 for unlimited.
+     * Only supported by the compiled engine.
+     *
+     * @throws IllegalArgumentException if the fields are limited and another engine is selected
+     */
+    public void setMaxFields(int maxFields) {
+        requireFieldsSupported(engine, maxFields);
+        this.maxFields = maxFields;
+        compiledScheduler.setMaxFields(maxFields);
+    }
+
+    private static void requireFieldsSupported(Engine engine, int maxFields) {
+        if (maxFields > 0 && engine != Engine.COMPILED) {
+            throw new IllegalArgumentException("A limited number of fields is only supported by the compiled engine, not "
+                    + engine);
+        }
+    }
+
     public Map<Match, Integer> getTeamDemand() {
         return emptyAssignmentMap.values().stream()
                 .map(MatchAssignment::getMatch)
@@ -57,27 +151,102 @@ public class Scheduler {
     }
 
     public List<Schedule> findAllSchedules(Map<Match, List<Team>> teamMapping) {
-        List<Schedule> sets = new ArrayList<>();
-        sets.add(assignTeamsToMatches(teamMapping));
-        List<Schedule> allScheduled = new ArrayList<>();
-
-        while (!sets.isEmpty()) {
-            List<Schedule> newSets = new ArrayList<>();
-            for (var set : sets) {
-                var scheduleAssignment = scheduleNextMatch(set);
-                scheduleAssignment.ifPresentOrElse(
-                        s -> {
-                            var newSet = new HashMap<>(set.getAssignmentMap());
-                            newSet.put(s.getMatch().getName(), s);
-                            var newSchedule = new Schedule(Collections.unmodifiableMap(newSet));
-                            newSets.addAll(assignTeams(newSchedule, s));
-                        },
-                        () -> allScheduled.add(set));
+        List<Schedule> allSchedules = new ArrayList<>();
+        forEachSchedule(teamMapping, allSchedules::add);
+        return allSchedules;
+    }
+
+    public List<Schedule> findSchedules(Map<Match, List<Team>> teamMapping, int limit) {
+        List<Schedule> schedules = new ArrayList<>();
+        if (engine != Engine.LEGACY) {
+            compiledScheduler.findSchedules(teamMapping, schedules::add, limit);
+        } else {
+            forEachScheduleLegacy(teamMapping, schedules::add, limit);
+        }
+        return schedules;
+    }
+
+    public void forEachSchedule(Map<Match, List<Team>> teamMapping, Consumer<Schedule> consumer) {
+        if (engine != Engine.LEGACY) {
+            compiledScheduler.forEachSchedule(teamMapping, consumer);
+        } else {
+            forEachScheduleLegacy(teamMapping, consumer, Integer.MAX_VALUE);
+        }
+    }
+
+    public ScheduleSummary evaluate(Map<Match, List<Team>> teamMapping) {
+        if (engine == Engine.COMPILED) {
+            return compiledScheduler.evaluate(teamMapping);
+        }
+        if (engine == Engine.BATCH) {
+            if (maxFields > 0) {
+                throw new IllegalStateException("A limited number of fields is only supported by the compiled engine");
+            }
+            return getBatchScheduler().evaluate(teamMapping);
+        }
+        var accumulator = new ScheduleSummary.Accumulator(true, true);
+        forEachScheduleLegacy(teamMapping, accumulator, Integer.MAX_VALUE);
+        return accumulator.toSummary();
+    }
+
+    /**
+     * Evaluate the outcomes that are consistent with the played matches. Only supported by the compiled engine.
+     */
+    public ScheduleSummary evaluate(Map<Match, List<Team>> teamMapping, Collection<MatchResult> results) {
+        requireCompiled("Match results are");
+        return compiledScheduler.evaluate(teamMapping, results);
+    }
+
+    public List<Schedule> findSchedules(Map<Match, List<Team>> teamMapping, Collection<MatchResult> results,
+                                        int limit) {
+        requireCompiled("Match results are");
+        List<Schedule> schedules = new ArrayList<>();
+        compiledScheduler.findSchedules(teamMapping, results, schedules::add, limit);
+        return schedules;
+    }
+
+    private void requireCompiled(String feature) {
+        if (engine == Engine.LEGACY) {
+            throw new IllegalStateException(feature + " only supported by the compiled engine");
+        }
+    }
+
+    /**
+     * Evaluate all outcomes of a team mapping, splitting the outcome tree into fork/join tasks
+     * down to {@code forkDepth} branch points. The legacy and batch engines always evaluate sequentially.
+     */
+    public ScheduleSummary evaluateParallel(Map<Match, List<Team>> teamMapping, int forkDepth) {
+        if (engine == Engine.COMPILED) {
+            return compiledScheduler.evaluateParallel(teamMapping, forkDepth);
+        }
+        return evaluate(teamMapping);
+    }
+
+    private void forEachScheduleLegacy(Map<Match, List<Team>> teamMapping, Consumer<Schedule> consumer, int limit) {
+        if (maxFields > 0) {
+            throw new IllegalStateException("A limited number of fields is only supported by the compiled engine");
+        }
+        Deque<Schedule> pending = new ArrayDeque<>();
+        pending.push(assignTeamsToMatches(teamMapping));
+        int numSchedules = 0;
+
+        while (!pending.isEmpty() && numSchedules < limit) {
+            var set = pending.pop();
+            var scheduleAssignment = scheduleNextMatch(set);
+            if (scheduleAssignment.isPresent()) {
+                var s = scheduleAssignment.get();
+                var newSet = new HashMap<>(set.getAssignmentMap());
+                newSet.put(s.getMatch().getName(), s);
+                var newSchedule = new Schedule(Collections.unmodifiableMap(newSet));
+                var branches = assignTeams(newSchedule, s);
+                for (int i = branches.size() - 1; i >= 0; i--) {
+                    pending.push(branches.get(i));
+                }
+            } else {
+                consumer.accept(set);
+                numSchedules++;
             }
-            sets.clear();
-            sets.addAll(newSets);
         }
-        return allScheduled;
     }
 
 
@@ -0,0 +1,95 @@
+package edu.robocup.ssl;
+
+import lombok.Getter;
+import lombok.Value;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Consecutive seedings of a single team combination, stored as team ids in one array.
+ * Seeding {@code i} occupies the positions {@code i * numSlots} to {@code (i + 1) * numSlots - 1}.
+ */
+@Value
+public class SeedingBatch {
+    Combination combination;
+    int firstSeeding;
+    int numSeedings;
+    int[] teamIds;
+
+    /**
+     * Collects the results of all batches of a combination, so they can be recorded together.
+     */
+    public static class Combination {
+        @Getter
+        private final int index;
+        private final ScheduleSummary[] summaries;
+        private final int[] teamIds;
+        private final AtomicInteger remaining;
+        private final int[] weights;
+        private final String[] canonicalKeys;
+
+        public Combination(int index, int numSeedings, int numSlots) {
+            this(index, numSlots, null, null, numSeedings);
+        }
+
+        /**
+         * Combination of seedings that each stand in for {@code weights[i]} equivalent seedings with the given keys.
+         */
+        public Combination(int index, int numSlots, int[] weights, String[] canonicalKeys) {
+            this(index, numSlots, weights, canonicalKeys, weights.length);
+        }
+
+        private Combination(int index, int numSlots, int[] weights, String[] canonicalKeys, int numSeedings) {
+            this.index = index;
+            this.summaries = new ScheduleSummary[numSeedings];
+            this.teamIds = new int[numSeedings * numSlots];
+            this.remaining = new AtomicInteger(numSeedings);
+            this.weights = weights;
+            this.canonicalKeys = canonicalKeys;
+        }
+
+        public int getNumSeedings() {
+            return summaries.length;
+        }
+
+        /**
+         * Number of equivalent seedings that a seeding stands in for.
+         */
+        public int getWeight(int seeding) {
+            return weights != null ? weights[seeding] : 1;
+        }
+
+        /**
+         * Canonical key of a seeding, null if it was not grouped by its key.
+         */
+        public String getCanonicalKey(int seeding) {
+            return canonicalKeys != null ? canonicalKeys[seeding] : null;
+        }
+
+        /**
+         * Store the results of a batch.
+         *
+         * @return true if the results of all seedings of the combination are stored now
+         */
+        public boolean record(int firstSeeding, int[] batchTeamIds, ScheduleSummary[] batchSummaries) {
+            System.arraycopy(batchSummaries, 0, summaries, firstSeeding, batchSummaries.length);
+            int numSlots = teamIds.length / summaries.length;
+            System.arraycopy(batchTeamIds, 0, teamIds, firstSeeding * numSlots, batchSummaries.length * numSlots);
+            return remaining.addAndGet(-batchSummaries.length) == 0;
+        }
+
+        /**
+         * Results of all seedings, only complete after {@link #record(int, int[], ScheduleSummary[])} returned true.
+         */
+        public ScheduleSummary[] getSummaries() {
+            return summaries;
+        }
+
+        /**
+         * Team ids of all seedings, stored like in {@link SeedingBatch}.
+         */
+        public int[] getTeamIds() {
+            return teamIds;
+        }
+    }
+}
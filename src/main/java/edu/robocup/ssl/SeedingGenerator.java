@@ -0,0 +1,191 @@
+package edu.robocup.ssl;
+
+import lombok.Setter;
+import org.apache.commons.math3.util.CombinatoricsUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Lazily enumerates the seedings of all combinations of {@code numSlots} out of {@code numTeams} teams
+ * in batches of at most {@code batchSize} seedings. The first {@code numFixed} teams of a combination
+ * keep their slots (see {@link Tournament#calcSeedingSlots()}), the remaining teams are permuted.
+ * Only the current combination and permutation are kept in memory.
+ * <p>
+ * Combinations are enumerated in the order of their rank (see {@link Combinations}), starting at any rank,
+ * and the rank is the index of the combination.
+ * <p>
+ * With a canonical key, the seedings of a combination are grouped by their key and only the first seeding of every
+ * group is generated, weighted by the size of its group (see {@link SeedingBatch.Combination#getWeight(int)}).
+ */
+public class SeedingGenerator implements Iterator<SeedingBatch> {
+    private final int numSlots;
+    private final int numFixed;
+    private final int batchSize;
+    private final long endRank;
+    private final BitSet skippedCombinations;
+    /**
+     * Key shared by equivalent seedings, null to generate every seeding.
+     */
+    @Setter
+    private Function<int[], String> canonicalKey;
+
+    private long nextRank;
+    private int[] combinationTeams;
+    private SeedingBatch.Combination combination;
+    private int nextSeeding;
+    private int[] fixedTeams;
+    private int[] permutation;
+    private boolean hasPermutation;
+    /**
+     * Team ids of the representatives of the current combination, only with a canonical key.
+     */
+    private int[] representatives;
+
+    public SeedingGenerator(int numTeams, int numSlots, int numFixed, int batchSize, BitSet skippedCombinations) {
+        this(numSlots, numFixed, batchSize, 0, Combinations.count(numTeams, numSlots), skippedCombinations);
+    }
+
+    /**
+     * Enumerate only the combinations with a rank from {@code firstRank} (inclusive) to {@code endRank} (exclusive).
+     */
+    public SeedingGenerator(int numSlots, int numFixed, int batchSize, long firstRank, long endRank,
+                            BitSet skippedCombinations) {
+        this.numSlots = numSlots;
+        this.numFixed = numFixed;
+        this.batchSize = batchSize;
+        this.nextRank = firstRank;
+        this.endRank = endRank;
+        this.skippedCombinations = skippedCombinations;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (hasPermutation) {
+            return true;
+        }
+        while (nextRank < endRank) {
+            if (combinationTeams == null) {
+                combinationTeams = Combinations.unrank(nextRank, numSlots);
+            } else {
+                nextCombination(combinationTeams);
+            }
+            int combinationIndex = (int) nextRank++;
+            if (skippedCombinations.get(combinationIndex)) {
+                continue;
+            }
+            fixedTeams = Arrays.copyOf(combinationTeams, numFixed);
+            permutation = Arrays.copyOfRange(combinationTeams, numFixed, numSlots);
+            combination = canonicalKey != null
+                    ? canonicalCombination(combinationIndex)
+                    : new SeedingBatch.Combination(combinationIndex,
+                    (int) CombinatoricsUtils.factorial(permutation.length), numSlots);
+            nextSeeding = 0;
+            hasPermutation = true;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public SeedingBatch next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int numSeedings = Math.min(batchSize, combination.getNumSeedings() - nextSeeding);
+        int[] teamIds;
+        if (representatives != null) {
+            teamIds = Arrays.copyOfRange(representatives, nextSeeding * numSlots, (nextSeeding + numSeedings) * numSlots);
+            hasPermutation = nextSeeding + numSeedings < combination.getNumSeedings();
+        } else {
+            teamIds = new int[numSeedings * numSlots];
+            for (int i = 0; i < numSeedings; i++) {
+                System.arraycopy(fixedTeams, 0, teamIds, i * numSlots, numFixed);
+                System.arraycopy(permutation, 0, teamIds, i * numSlots + numFixed, permutation.length);
+                hasPermutation = nextPermutation(permutation);
+            }
+        }
+        var batch = new SeedingBatch(combination, nextSeeding, numSeedings, teamIds);
+        nextSeeding += numSeedings;
+        return batch;
+    }
+
+    /**
+     * Group all permutations of the current combination by their canonical key, in the order of their first seeding.
+     */
+    private SeedingBatch.Combination canonicalCombination(int index) {
+        Map<String, Integer> groups = new LinkedHashMap<>();
+        List<int[]> seedings = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int[] seeding = Arrays.copyOf(fixedTeams, numSlots);
+        do {
+            System.arraycopy(permutation, 0, seeding, numFixed, permutation.length);
+            var group = groups.putIfAbsent(canonicalKey.apply(seeding), seedings.size());
+            if (group == null) {
+                seedings.add(seeding.clone());
+                weights.add(1);
+            } else {
+                weights.set(group, weights.get(group) + 1);
+            }
+        } while (nextPermutation(permutation));
+
+        representatives = new int[seedings.size() * numSlots];
+        for (int i = 0; i < seedings.size(); i++) {
+            System.arraycopy(seedings.get(i), 0, representatives, i * numSlots, numSlots);
+        }
+        return new SeedingBatch.Combination(index, numSlots,
+                weights.stream().mapToInt(Integer::intValue).toArray(), groups.keySet().toArray(new String[0]));
+    }
+
+    /**
+     * Advance an ascending combination to the one with the next rank: increment the first element that does not
+     * precede its successor by one and reset the elements before it to the smallest values.
+     */
+    static void nextCombination(int[] combination) {
+        int i = 0;
+        while (i + 1 < combination.length && combination[i] + 1 == combination[i + 1]) {
+            i++;
+        }
+        combination[i]++;
+        for (int j = 0; j < i; j++) {
+            combination[j] = j;
+        }
+    }
+
+    /**
+     * Advance to the next permutation in lexicographic order.
+     *
+     * @return false if the permutation was the last one
+     */
+    static boolean nextPermutation(int[] values) {
+        int i = values.length - 2;
+        while (i >= 0 && values[i] >= values[i + 1]) {
+            i--;
+        }
+        if (i < 0) {
+            return false;
+        }
+        int j = values.length - 1;
+        while (values[j] <= values[i]) {
+            j--;
+        }
+        swap(values, i, j);
+        for (int k = i + 1, l = values.length - 1; k < l; k++, l--) {
+            swap(values, k, l);
+        }
+        return true;
+    }
+
+    private static void swap(int[] values, int i, int j) {
+        int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
@@ -0,0 +1,92 @@
+package edu.robocup.ssl;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Draws random seedings for team pools too large to enumerate, stratified by combination rank
+ * (see {@link Combinations}). The ranks are split into {@code numStrata} ranges of almost equal size,
+ * every stratum gets an equal share of the samples. A sample is a uniformly drawn combination of the stratum
+ * with a uniformly drawn permutation of its teams that are not fixed to a slot.
+ * <p>
+ * The batches use the stratum as combination index and never span strata.
+ */
+public class SeedingSampler implements Iterator<SeedingBatch> {
+    private final int numSlots;
+    private final int numFixed;
+    private final int batchSize;
+    private final long[] strataBounds;
+    private final int[] samplesPerStratum;
+    private final SplittableRandom random;
+
+    private int stratum;
+    private int drawn;
+
+    public SeedingSampler(int numTeams, int numSlots, int numFixed, int batchSize,
+                          int numStrata, int numSamples, long seed) {
+        this.numSlots = numSlots;
+        this.numFixed = numFixed;
+        this.batchSize = batchSize;
+        this.random = new SplittableRandom(seed);
+        var numCombinations = BigInteger.valueOf(Combinations.count(numTeams, numSlots));
+        numStrata = (int) Math.max(1, Math.min(numStrata, numCombinations.min(BigInteger.valueOf(numSamples)).longValue()));
+        strataBounds = new long[numStrata + 1];
+        for (int i = 0; i <= numStrata; i++) {
+            strataBounds[i] = numCombinations.multiply(BigInteger.valueOf(i))
+                    .divide(BigInteger.valueOf(numStrata)).longValue();
+        }
+        samplesPerStratum = new int[numStrata];
+        for (int i = 0; i < numStrata; i++) {
+            samplesPerStratum[i] = numSamples / numStrata + (i < numSamples % numStrata ? 1 : 0);
+        }
+    }
+
+    public int getNumStrata() {
+        return samplesPerStratum.length;
+    }
+
+    /**
+     * Share of all combinations in each stratum.
+     */
+    public double[] getStratumWeights() {
+        double[] weights = new double[samplesPerStratum.length];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (double) (strataBounds[i + 1] - strataBounds[i]) / strataBounds[weights.length];
+        }
+        return weights;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (stratum < samplesPerStratum.length && drawn == samplesPerStratum[stratum]) {
+            stratum++;
+            drawn = 0;
+        }
+        return stratum < samplesPerStratum.length;
+    }
+
+    @Override
+    public SeedingBatch next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int numSeedings = Math.min(batchSize, samplesPerStratum[stratum] - drawn);
+        int[] teamIds = new int[numSeedings * numSlots];
+        for (int i = 0; i < numSeedings; i++) {
+            long rank = strataBounds[stratum] + random.nextLong(strataBounds[stratum + 1] - strataBounds[stratum]);
+            int[] combination = Combinations.unrank(rank, numSlots);
+            for (int slot = combination.length - 1; slot > numFixed; slot--) {
+                int other = numFixed + random.nextInt(slot - numFixed + 1);
+                int team = combination[slot];
+                combination[slot] = combination[other];
+                combination[other] = team;
+            }
+            System.arraycopy(combination, 0, teamIds, i * numSlots, numSlots);
+        }
+        var batch = new SeedingBatch(new SeedingBatch.Combination(stratum, numSeedings, numSlots), 0, numSeedings, teamIds);
+        drawn += numSeedings;
+        return batch;
+    }
+}
@@ -0,0 +1,263 @@
+package edu.robocup.ssl;
+
+import lombok.Value;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands ranges of combination ranks (see {@link Combinations}) to {@link SweepWorker}s that connect over loopback TCP
+ * and collects the aggregated results of every range. The range of a worker that disconnects or stays silent
+ * for longer than the timeout goes back to the front of the queue, and the results of a range are merged only once.
+ * <p>
+ * The protocol uses the binary format of {@link DataOutputStream}. The coordinator greets every worker with
+ * {@link #MAGIC}, {@link #VERSION} and the run key, which the worker compares with its own. It then sends
+ * {@link #RANGE} with the first and the end rank, the worker sends {@link #HEARTBEAT}s while its evaluation makes
+ * progress and finally {@link #RESULT} with the range and the length prefixed aggregates of
+ * {@link Evaluator#writeAggregates(java.io.DataOutput)}. {@link #DONE} tells the worker that all ranges are completed.
+ */
+public class SweepCoordinator implements Closeable {
+    static final int MAGIC = 0x5353_4c57;
+    static final int VERSION = 1;
+    static final byte RANGE = 1;
+    static final byte DONE = 2;
+    static final byte HEARTBEAT = 3;
+    static final byte RESULT = 4;
+    /**
+     * How long idle connections wait for a range before checking whether the sweep is completed.
+     */
+    private static final long POLL_MILLIS = 100;
+
+    private final String runKey;
+    private final int timeoutMillis;
+    private final RangeConsumer consumer;
+    private final int numRanges;
+    private final BlockingDeque<Range> pendingRanges;
+    private final Set<Range> completedRanges = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch completed = new CountDownLatch(1);
+    private final ServerSocket serverSocket;
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+    private final List<Thread> connections = new CopyOnWriteArrayList<>();
+    private final AtomicInteger numWorkers = new AtomicInteger();
+    private final LongAdder numReassigned = new LongAdder();
+
+    /**
+     * Start listening for workers.
+     *
+     * @param port          loopback port, 0 for any free port
+     * @param timeoutMillis time without a message after which a worker counts as failed, 0 to wait forever
+     * @param consumer      receives the aggregates of every completed range, one range at a time
+     */
+    public SweepCoordinator(int port, String runKey, List<Range> ranges, int timeoutMillis, RangeConsumer consumer)
+            throws IOException {
+        this.runKey = runKey;
+        this.timeoutMillis = timeoutMillis;
+        this.consumer = consumer;
+        this.numRanges = ranges.size();
+        this.pendingRanges = new LinkedBlockingDeque<>(ranges);
+        if (ranges.isEmpty()) {
+            completed.countDown();
+        }
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        var acceptor = new Thread(this::accept, "sweep-coordinator");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Split the ranks that are not completed yet into ranges of at most {@code rangeSize} consecutive ranks.
+     */
+    public static List<Range> partition(BitSet completedCombinations, long numCombinations, int rangeSize) {
+        if (rangeSize < 1) {
+            throw new IllegalArgumentException("Range size must be positive: " + rangeSize);
+        }
+        List<Range> ranges = new ArrayList<>();
+        int first = completedCombinations.nextClearBit(0);
+        while (first < numCombinations) {
+            int nextCompleted = completedCombinations.nextSetBit(first);
+            long end = nextCompleted < 0 ? numCombinations : Math.min(nextCompleted, numCombinations);
+            for (long rank = first; rank < end; rank += rangeSize) {
+                ranges.add(new Range(rank, Math.min(end, rank + rangeSize)));
+            }
+            first = completedCombinations.nextClearBit((int) end);
+        }
+        return ranges;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getNumRanges() {
+        return numRanges;
+    }
+
+    public int getNumRemaining() {
+        return numRanges - completedRanges.size();
+    }
+
+    /**
+     * Number of connected workers.
+     */
+    public int getNumWorkers() {
+        return numWorkers.get();
+    }
+
+    /**
+     * Number of ranges that were handed out again after their worker failed.
+     */
+    public long getNumReassigned() {
+        return numReassigned.sum();
+    }
+
+    /**
+     * Wait until the results of all ranges are merged and give the workers a moment to receive {@link #DONE}.
+     */
+    public void awaitCompletion() throws InterruptedException {
+        completed.await();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(POLL_MILLIS * 10);
+        for (var connection : connections) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis > 0) {
+                connection.join(remainingMillis);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (var socket : sockets) {
+            socket.close();
+        }
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                var socket = serverSocket.accept();
+                sockets.add(socket);
+                var connection = new Thread(() -> serve(socket), "sweep-worker-" + socket.getPort());
+                connection.setDaemon(true);
+                connections.add(connection);
+                connection.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("Accepting a worker failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        numWorkers.incrementAndGet();
+        Range range = null;
+        try (socket) {
+            socket.setSoTimeout(timeoutMillis);
+            var in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            var out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(runKey);
+            out.flush();
+            while ((range = nextRange()) != null) {
+                out.writeByte(RANGE);
+                out.writeLong(range.getFirst());
+                out.writeLong(range.getEnd());
+                out.flush();
+                receiveResult(in, range);
+                range = null;
+            }
+            out.writeByte(DONE);
+            out.flush();
+        } catch (IOException e) {
+            if (completed.getCount() > 0) {
+                System.err.println("Worker " + socket.getRemoteSocketAddress() + " failed: "
+                        + (e.getMessage() != null ? e.getMessage() : e.toString()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (range != null && !completedRanges.contains(range)) {
+                pendingRanges.addFirst(range);
+                numReassigned.increment();
+            }
+            numWorkers.decrementAndGet();
+            sockets.remove(socket);
+        }
+    }
+
+    /**
+     * @return null once all ranges are completed
+     */
+    private Range nextRange() throws InterruptedException {
+        while (completed.getCount() > 0) {
+            var range = pendingRanges.pollFirst(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (range != null && !completedRanges.contains(range)) {
+                return range;
+            }
+        }
+        return null;
+    }
+
+    private void receiveResult(DataInputStream in, Range range) throws IOException {
+        byte type;
+        while ((type = in.readByte()) == HEARTBEAT) {
+            // the worker is still alive
+        }
+        if (type != RESULT) {
+            throw new IOException("Unexpected message " + type);
+        }
+        var resultRange = new Range(in.readLong(), in.readLong());
+        if (!resultRange.equals(range)) {
+            throw new IOException("Result for " + resultRange + " instead of " + range);
+        }
+        byte[] aggregates = new byte[in.readInt()];
+        in.readFully(aggregates);
+        synchronized (completedRanges) {
+            if (completedRanges.contains(range)) {
+                return;
+            }
+            consumer.accept(range, new DataInputStream(new ByteArrayInputStream(aggregates)));
+            completedRanges.add(range);
+            if (completedRanges.size() == numRanges) {
+                completed.countDown();
+            }
+        }
+    }
+
+    /**
+     * Ranks from {@code first} (inclusive) to {@code end} (exclusive).
+     */
+    @Value
+    public static class Range {
+        long first;
+        long end;
+    }
+
+    @FunctionalInterface
+    public interface RangeConsumer {
+        void accept(Range range, DataInput aggregates) throws IOException;
+    }
+}
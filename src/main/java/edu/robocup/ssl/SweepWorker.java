@@ -0,0 +1,132 @@
+package edu.robocup.ssl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Evaluates the ranges of combination ranks that a {@link SweepCoordinator} hands out, one range at a time,
+ * and sends back the aggregated results of every range. Heartbeats keep the coordinator from reassigning
+ * a range while it is evaluated. They are only sent while the evaluation makes progress, so the range of a worker
+ * whose pipeline hangs is reassigned as well.
+ */
+public class SweepWorker {
+    static final long HEARTBEAT_MILLIS = 1000;
+    /**
+     * Workers may be started before their coordinator, connecting is retried for this long.
+     */
+    static final long CONNECT_MILLIS = 10_000;
+
+    private final String runKey;
+    private final RangeSweep sweep;
+    private final LongSupplier progress;
+
+    /**
+     * @param progress counter that increases while a range is evaluated, e.g. the number of evaluated batches
+     */
+    public SweepWorker(String runKey, RangeSweep sweep, LongSupplier progress) {
+        this.runKey = runKey;
+        this.sweep = sweep;
+        this.progress = progress;
+    }
+
+    /**
+     * Work for the coordinator on the given loopback port until it has no more ranges.
+     *
+     * @return the number of evaluated ranges
+     * @throws IllegalStateException if the coordinator runs with other inputs
+     */
+    public int run(int port) throws Exception {
+        try (var socket = connect(port)) {
+            var in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            var out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            if (in.readInt() != SweepCoordinator.MAGIC || in.readInt() != SweepCoordinator.VERSION) {
+                throw new IOException("Port " + port + " is not a compatible sweep coordinator");
+            }
+            var coordinatorKey = in.readUTF();
+            if (!coordinatorKey.equals(runKey)) {
+                throw new IllegalStateException("The coordinator sweeps " + coordinatorKey + ", not " + runKey);
+            }
+
+            var heartbeat = Executors.newSingleThreadScheduledExecutor();
+            var lastProgress = new AtomicLong(progress.getAsLong());
+            heartbeat.scheduleAtFixedRate(() -> {
+                long current = progress.getAsLong();
+                if (lastProgress.getAndSet(current) != current) {
+                    send(out, SweepCoordinator.HEARTBEAT);
+                }
+            }, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+            try {
+                int numRanges = 0;
+                byte type;
+                while ((type = in.readByte()) == SweepCoordinator.RANGE) {
+                    long first = in.readLong();
+                    long end = in.readLong();
+                    var aggregates = new ByteArrayOutputStream();
+                    sweep.sweep(first, end).writeAggregates(new DataOutputStream(aggregates));
+                    synchronized (out) {
+                        out.writeByte(SweepCoordinator.RESULT);
+                        out.writeLong(first);
+                        out.writeLong(end);
+                        out.writeInt(aggregates.size());
+                        aggregates.writeTo(out);
+                        out.flush();
+                    }
+                    numRanges++;
+                }
+                if (type != SweepCoordinator.DONE) {
+                    throw new IOException("Unexpected message " + type);
+                }
+                return numRanges;
+            } finally {
+                heartbeat.shutdownNow();
+            }
+        }
+    }
+
+    private static Socket connect(int port) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CONNECT_MILLIS);
+        while (true) {
+            try {
+                return new Socket(InetAddress.getLoopbackAddress(), port);
+            } catch (ConnectException e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    /**
+     * A failed heartbeat is ignored, the next read of the worker fails as well.
+     */
+    private static void send(DataOutputStream out, byte type) {
+        synchronized (out) {
+            try {
+                out.writeByte(type);
+                out.flush();
+            } catch (IOException ignored) {
+                // reported by the worker thread
+            }
+        }
+    }
+
+    /**
+     * Evaluates all combinations with a rank from {@code firstRank} (inclusive) to {@code endRank} (exclusive).
+     */
+    @FunctionalInterface
+    public interface RangeSweep {
+        Evaluator sweep(long firstRank, long endRank) throws Exception;
+    }
+}
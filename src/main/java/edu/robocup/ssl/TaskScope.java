@@ -0,0 +1,106 @@
+package edu.robocup.ssl;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Group of tasks that ends only when all of its tasks ended, with its own pool of platform threads.
+ * At most {@code maxPending} tasks are queued or running, {@link #fork(Runnable)} blocks until one ends.
+ * The first failing task cancels the other tasks and is rethrown by {@link #join()}.
+ */
+public class TaskScope implements AutoCloseable {
+    private final ExecutorService executor;
+    private final int maxPending;
+    private final Semaphore pending;
+    /**
+     * The scope itself is a party, every forked task registers another one until it ends.
+     */
+    private final Phaser phaser = new Phaser(1);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    public TaskScope(int numThreads, int maxPending) {
+        this.executor = Executors.newFixedThreadPool(numThreads);
+        this.maxPending = maxPending;
+        this.pending = new Semaphore(maxPending);
+    }
+
+    /**
+     * Start a task, waiting while the maximum number of tasks are pending.
+     *
+     * @return false if the scope was cancelled by a failing task, {@link #join()} throws its failure
+     */
+    public boolean fork(Runnable task) throws InterruptedException {
+        pending.acquire();
+        if (failure.get() != null) {
+            pending.release();
+            return false;
+        }
+        phaser.register();
+        try {
+            executor.execute(() -> {
+                try {
+                    if (failure.get() == null) {
+                        task.run();
+                    }
+                } catch (Throwable t) {
+                    cancel(t);
+                } finally {
+                    end();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            end();
+            return false;
+        }
+        return true;
+    }
+
+    public int getNumPending() {
+        return maxPending - pending.availablePermits();
+    }
+
+    /**
+     * Wait until all forked tasks ended.
+     *
+     * @throws ExecutionException with the failure of the first failing task
+     */
+    public void join() throws InterruptedException, ExecutionException {
+        phaser.awaitAdvanceInterruptibly(phaser.arrive());
+        var cause = failure.get();
+        if (cause != null) {
+            throw new ExecutionException(cause);
+        }
+    }
+
+    /**
+     * Stop the threads, interrupting tasks that are still running if the scope was not joined.
+     * If the caller is interrupted while waiting for them, the interrupt status is set again.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void end() {
+        pending.release();
+        phaser.arriveAndDeregister();
+    }
+
+    private void cancel(Throwable cause) {
+        if (failure.compareAndSet(null, cause)) {
+            // queued tasks see the failure and end immediately, running tasks are interrupted
+            executor.shutdownNow().forEach(Runnable::run);
+        }
+    }
+}
@@ -1,20 +1,121 @@
 package edu.robocup.ssl;
 
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import lombok.Value;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Value
 public class Team {
+    private static final int NO_WINDOW_CODE = -1;
+
     String name;
     int availStart;
     int availEnd;
+    /**
+     * Further daily availability windows as start/end pairs, in addition to the first window.
+     */
+    @ToString.Exclude
+    List<Integer> additionalWindows;
+    /**
+     * Hours to wait for the next available start, indexed by the hour of the day.
+     * Availability repeats every day, so this covers any time horizon.
+     */
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    byte[] waitByHour;
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    int windowCode;
+
+    public Team(String name, int availStart, int availEnd) {
+        this(name, availStart, availEnd, List.of());
+    }
+
+    public Team(String name, int availStart, int availEnd, List<Integer> additionalWindows) {
+        if (additionalWindows.size() % 2 != 0) {
+            throw new IllegalArgumentException("Incomplete availability window for team " + name);
+        }
+        checkHour(name, availStart);
+        checkHour(name, availEnd);
+        additionalWindows.forEach(hour -> checkHour(name, hour));
+        this.name = name;
+        this.availStart = availStart;
+        this.availEnd = availEnd;
+        this.additionalWindows = List.copyOf(additionalWindows);
+        this.waitByHour = new byte[24];
+        for (int hour = 0; hour < 24; hour++) {
+            int next = nextWindowStart(hour, availStart, availEnd);
+            for (int i = 0; i < additionalWindows.size(); i += 2) {
+                next = Math.min(next, nextWindowStart(hour, additionalWindows.get(i), additionalWindows.get(i + 1)));
+            }
+            waitByHour[hour] = (byte) (next - hour);
+        }
+        this.windowCode = NO_WINDOW_CODE;
+    }
+
+    private Team(Team team, int windowCode) {
+        this.name = team.name;
+        this.availStart = team.availStart;
+        this.availEnd = team.availEnd;
+        this.additionalWindows = team.additionalWindows;
+        this.waitByHour = team.waitByHour;
+        this.windowCode = windowCode;
+    }
+
+    private static void checkHour(String name, int hour) {
+        if (hour < 0 || hour > 23) {
+            throw new IllegalArgumentException("Hour " + hour + " of team " + name + " is not within 0..23");
+        }
+    }
+
+    /**
+     * Copies of the teams with a code for their availability that is unique within the list.
+     * Codes are numbered from 0 in the order of the teams, so they stay small and fit into the cache keys.
+     */
+    public static List<Team> withWindowCodes(List<Team> teams) {
+        Map<String, Integer> codes = new HashMap<>();
+        return teams.stream()
+                .map(team -> new Team(team, codes.computeIfAbsent(Arrays.toString(team.waitByHour), k -> codes.size())))
+                .collect(Collectors.toList());
+    }
 
     public int nextAvailableStart(int start) {
+        return start + waitByHour[start % 24];
+    }
+
+    /**
+     * Hours to wait for the next available start at the given hour of the day.
+     */
+    public int waitAt(int hour) {
+        return waitByHour[hour];
+    }
+
+    /**
+     * Code for the availability, see {@link #withWindowCodes(List)}. Teams of the same list with the same code
+     * are interchangeable for scheduling.
+     */
+    public int windowCode() {
+        if (windowCode == NO_WINDOW_CODE) {
+            throw new IllegalStateException("Team " + name + " is not part of a team list with window codes");
+        }
+        return windowCode;
+    }
+
+    private static int nextWindowStart(int start, int availStart, int availEnd) {
         int dayStart = start % 24;
         int days = start / 24;
         if (dayStart >= availStart) {
@@ -37,10 +138,18 @@ public class Team {
     }
 
     public static List<Team> loadTeams(Path csvFile) throws IOException {
-        return Files.readAllLines(csvFile).stream()
+        return withWindowCodes(Files.readAllLines(csvFile).stream()
                 .filter(l -> !l.startsWith("#"))
                 .map(l -> l.split(","))
-                .map(f -> new Team(f[0], Integer.parseInt(f[1]), Integer.parseInt(f[2])))
-                .collect(Collectors.toList());
+                .map(Team::parse)
+                .collect(Collectors.toList()));
+    }
+
+    private static Team parse(String[] fields) {
+        List<Integer> additionalWindows = new ArrayList<>();
+        for (int i = 3; i < fields.length; i++) {
+            additionalWindows.add(Integer.parseInt(fields[i].trim()));
+        }
+        return new Team(fields[0], Integer.parseInt(fields[1]), Integer.parseInt(fields[2]), additionalWindows);
     }
 }
@@ -1,6 +1,5 @@
 package edu.robocup.ssl;
 
-import lombok.RequiredArgsConstructor;
 import org.apache.commons.collections4.iterators.PermutationIterator;
 
 import java.util.ArrayList;
@@ -8,11 +7,18 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-@RequiredArgsConstructor
 public class Tournament {
     private final Scheduler scheduler;
     private final List<Team> teams;
 
+    /**
+     * The teams get the window codes of this list, see {@link Team#withWindowCodes(List)}.
+     */
+    public Tournament(Scheduler scheduler, List<Team> teams) {
+        this.scheduler = scheduler;
+        this.teams = Team.withWindowCodes(teams);
+    }
+
     public static Tournament of(Scheduler scheduler, List<Team> teams) {
         return new Tournament(scheduler, teams);
     }
@@ -62,6 +68,32 @@ public class Tournament {
     }
 
 
+    /**
+     * Match of every position of a compact seeding, which lists one team id per position.
+     * The first positions hold the fixed team of every match with two open slots,
+     * the others one team per match, like in {@link #calcTeamAssignmentCombinations(List)}.
+     */
+    public Match[] calcSeedingSlots() {
+        var teamDemand = scheduler.getTeamDemand();
+        List<Match> slots = new ArrayList<>();
+        teamDemand.forEach((match, demand) -> {
+            if (demand == 2) {
+                slots.add(match);
+            }
+        });
+        slots.addAll(teamDemand.keySet());
+        return slots.toArray(new Match[0]);
+    }
+
+    public Map<Match, List<Team>> toTeamAssignment(Match[] slots, int[] seedings, int offset) {
+        Map<Match, List<Team>> assignment = new HashMap<>();
+        for (int i = 0; i < slots.length; i++) {
+            assignment.computeIfAbsent(slots[i], m -> new ArrayList<>(2)).add(teams.get(seedings[offset + i]));
+        }
+        return assignment;
+    }
+
+
     public List<Schedule> run(Map<Match, List<Team>> teamMapping) {
         return scheduler.findAllSchedules(teamMapping);
     }
@@ -0,0 +1,93 @@
+package edu.robocup.ssl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache for the results of outcome subtrees, shared by all search threads.
+ * Entries are spread over independently locked segments, each evicting its least recently used entry when full.
+ */
+public class TranspositionCache {
+    public static final long ABSENT = -1;
+    private static final int NUM_SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[NUM_SEGMENTS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TranspositionCache(int maxEntries) {
+        int segmentSize = Math.max(1, maxEntries / NUM_SEGMENTS);
+        for (int i = 0; i < NUM_SEGMENTS; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    public long get(String key) {
+        var segment = segment(key);
+        Long value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        if (value == null) {
+            misses.increment();
+            return ABSENT;
+        }
+        hits.increment();
+        return value;
+    }
+
+    public void put(String key, long value) {
+        var segment = segment(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (var segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment segment(String key) {
+        return segments[(key.hashCode() & 0x7fffffff) % NUM_SEGMENTS];
+    }
+
+    private class Segment extends LinkedHashMap<String, Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        Segment(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            if (size() > maxEntries) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -38,7 +38,8 @@ public class UmlComponentDiagram {
         } else if (line.contains("-->")) {
             var connectionPart = line.split(":");
             var parts = connectionPart[0].split(" ");
-            builder.connection(new ConnectionPair(parts[0], parts[2]));
+            var label = connectionPart.length > 1 ? connectionPart[1].trim() : null;
+            builder.connection(new ConnectionPair(parts[0], parts[2], label));
         }
     }
     
@@ -46,5 +47,13 @@ public class UmlComponentDiagram {
     public static class ConnectionPair {
         String from;
         String to;
+        /**
+         * W for the path of the winner, L for the loser, null if the connection has no label.
+         */
+        String label;
+
+        public boolean isWinnerPath() {
+            return "W".equals(label);
+        }
     }
 }
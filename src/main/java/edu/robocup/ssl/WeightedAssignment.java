@@ -0,0 +1,23 @@
+package edu.robocup.ssl;
+
+import lombok.Value;
+import lombok.With;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Team mapping standing in for {@code weight} equivalent team mappings.
+ * The canonical key is shared by all equivalent mappings, if known.
+ */
+@Value
+@With
+public class WeightedAssignment {
+    Map<Match, List<Team>> teamAssignment;
+    int weight;
+    String canonicalKey;
+
+    public static WeightedAssignment of(Map<Match, List<Team>> teamAssignment) {
+        return new WeightedAssignment(teamAssignment, 1, null);
+    }
+}
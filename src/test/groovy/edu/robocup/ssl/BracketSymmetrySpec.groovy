@@ -0,0 +1,40 @@
+package edu.robocup.ssl
+
+import spock.lang.Specification
+
+import java.nio.file.Paths
+
+class BracketSymmetrySpec extends Specification {
+
+    def "Find bracket automorphisms"() {
+        given:
+        def scheduler = Scheduler.load(Paths.get(diagram), 35)
+
+        expect:
+        scheduler.symmetry.automorphisms.size() == numAutomorphisms
+
+        where:
+        diagram    | numAutomorphisms
+        "DD8.puml" | 8
+        "DD9.puml" | 2
+    }
+
+    def "Equivalent team mappings have the same results"() {
+        given:
+        def teams = Team.loadTeams(Paths.get("input.csv"))
+        def scheduler = Scheduler.load(Paths.get("DD8.puml"), 35)
+        def tournament = new Tournament(scheduler, teams)
+
+        when:
+        def all = tournament.calcTeamAssignmentCombinations(teamIds)
+        def resultsByKey = all.groupBy { scheduler.symmetry.canonicalKey(it) }
+                .collectEntries { key, mappings -> [key, mappings.collect { scheduler.evaluate(it).maxEndTime }.unique()] }
+
+        then:
+        resultsByKey.size() < all.size()
+        resultsByKey.values().every { it.size() == 1 }
+
+        where:
+        teamIds << [[1, 3, 4, 5, 0, 2, 6, 7], [11, 14, 3, 4, 5, 6, 0, 2]]
+    }
+}
@@ -0,0 +1,50 @@
+package edu.robocup.ssl
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+class CheckpointSpec extends Specification {
+
+    def "Restores completed combinations and evaluator aggregates"() {
+        given:
+        def file = Files.createTempDirectory("checkpoint").resolve("run.checkpoint")
+        def evaluator = new Evaluator()
+        evaluator.setFindMaxNumFields(true)
+        evaluator.process(new ScheduleSummary(10, 63, 3, 5), 24)
+        evaluator.process(new ScheduleSummary(10, 71, 2, 0), 1)
+        def completed = new BitSet()
+        completed.set(0, 130)
+        completed.set(200)
+        completed.set(12869)
+
+        when:
+        def checkpoint = new Checkpoint(file, "DD8")
+        checkpoint.write(checkpoint.encode(completed, evaluator))
+        def restoredEvaluator = new Evaluator()
+        def restored = new Checkpoint(file, "DD8").restore(restoredEvaluator)
+
+        then:
+        restored == completed
+        restoredEvaluator.numTournaments == 25
+        restoredEvaluator.overallMaxEndTime == 71
+        restoredEvaluator.overallMaxNumFields == 3
+        restoredEvaluator.numPrunedNodes == 5
+        restoredEvaluator.maxEndTimeFrequency.getCount(63L) == 24
+        restoredEvaluator.maxNumFieldsFrequency.getCount(2L) == 1
+        !Files.exists(file.resolveSibling("run.checkpoint.tmp"))
+    }
+
+    def "Rejects checkpoints of other runs"() {
+        given:
+        def file = Files.createTempDirectory("checkpoint").resolve("run.checkpoint")
+        def checkpoint = new Checkpoint(file, "DD8")
+        checkpoint.write(checkpoint.encode(new BitSet(), new Evaluator()))
+
+        when:
+        new Checkpoint(file, "DD9").restore(new Evaluator())
+
+        then:
+        thrown(IOException)
+    }
+}
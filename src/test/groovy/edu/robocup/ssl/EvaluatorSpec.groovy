@@ -0,0 +1,108 @@
+package edu.robocup.ssl
+
+import spock.lang.Specification
+
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class EvaluatorSpec extends Specification {
+
+    def "Merges results recorded concurrently by many threads"() {
+        given:
+        def evaluator = new Evaluator()
+        evaluator.setFindMaxNumFields(true)
+        def executor = Executors.newFixedThreadPool(8)
+
+        when:
+        8.times { thread ->
+            executor.submit {
+                10000.times { i ->
+                    evaluator.process(new ScheduleSummary(1, 40 + (i % 50), 1 + (i % 4), 1), 2)
+                }
+            }
+        }
+        executor.shutdown()
+        executor.awaitTermination(1, TimeUnit.MINUTES)
+
+        then:
+        evaluator.numTournaments == 160000
+        evaluator.numPrunedNodes == 80000
+        evaluator.overallMaxEndTime == 89
+        evaluator.overallMaxNumFields == 4
+        evaluator.maxEndTimeFrequency.getCount(40L) == 8 * 200 * 2
+        evaluator.maxEndTimeFrequency.sumFreq == 160000
+        evaluator.maxNumFieldsFrequency.getCount(4L) == 8 * 2500 * 2
+    }
+
+    def "Folds the results of threads that ended"() {
+        given:
+        def evaluator = new Evaluator()
+        evaluator.setFindMaxNumFields(true)
+        def bytes = new ByteArrayOutputStream()
+        new Evaluator().tap { process(new ScheduleSummary(1, 80, 5, 0)) }.writeAggregates(new DataOutputStream(bytes))
+
+        when:
+        evaluator.process(new ScheduleSummary(1, 50, 1, 0))
+        evaluator.mergeAggregates(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+        3.times { range ->
+            (0..<4).collect { Thread.start { 100.times { evaluator.process(new ScheduleSummary(1, 60 + range, 2, 1)) } } }*.join()
+            evaluator.foldEndedStripes()
+        }
+
+        then:
+        evaluator.stripes.size() == 3
+        evaluator.numTournaments == 1202
+        evaluator.numPrunedNodes == 1200
+        evaluator.overallMaxEndTime == 80
+        evaluator.maxEndTimeFrequency.getCount(61L) == 400
+        evaluator.maxNumFieldsFrequency.getCount(2L) == 1200
+    }
+
+    def "Merges the aggregates of other evaluators"() {
+        given:
+        def parts = [[60, 62], [62, 70, 70]].collect { endTimes ->
+            def part = new Evaluator()
+            part.setFindMaxNumFields(true)
+            endTimes.each { part.process(new ScheduleSummary(1, it, it % 3, 2)) }
+            def bytes = new ByteArrayOutputStream()
+            part.writeAggregates(new DataOutputStream(bytes))
+            bytes.toByteArray()
+        }
+        def evaluator = new Evaluator()
+        evaluator.process(new ScheduleSummary(1, 50, 1, 0))
+
+        when:
+        parts.each { evaluator.mergeAggregates(new DataInputStream(new ByteArrayInputStream(it))) }
+        evaluator.mergeAggregates(new DataInputStream(new ByteArrayInputStream(parts[0], 0, 12)))
+
+        then:
+        thrown(EOFException)
+        evaluator.numTournaments == 6
+        evaluator.numPrunedNodes == 10
+        evaluator.overallMaxEndTime == 70
+        evaluator.maxEndTimeFrequency.getCount(62L) == 2
+        evaluator.maxNumFieldsFrequency.getCount(2L) == 2
+    }
+
+    def "Estimates the end time distribution from stratified samples"() {
+        given:
+        def evaluator = new Evaluator()
+        evaluator.setStratumWeights([0.25, 0.75] as double[])
+
+        when:
+        [60, 60, 62, 62].each { evaluator.processSample(new ScheduleSummary(1, it, 1, 0), 0) }
+        4.times { evaluator.processSample(new ScheduleSummary(1, 70, 1, 0), 1) }
+        def mean = evaluator.maxEndTimeMeanEstimate
+        def shares = evaluator.maxEndTimeDistributionEstimate
+
+        then:
+        evaluator.numTournaments == 8
+        Math.abs(mean.value - 67.75) < 1e-9
+        Math.abs(mean.halfWidth - 1.959964 * Math.sqrt(0.0625 * 4 / 3 / 4)) < 1e-9
+        shares.keySet() == [60, 62, 70] as Set
+        Math.abs(shares[60].value - 0.125) < 1e-9
+        Math.abs(shares[60].halfWidth - 1.959964 * Math.sqrt(0.0625 * 0.25 / 3)) < 1e-9
+        shares[70].value == 0.75
+        shares[70].halfWidth == 0
+    }
+}
@@ -0,0 +1,32 @@
+package edu.robocup.ssl
+
+import picocli.CommandLine
+import spock.lang.Specification
+
+import java.nio.file.Paths
+
+class OptimizerSpec extends Specification {
+
+    def "Finds seedings at least as good as the best evaluated one"() {
+        given:
+        def optimizer = new Optimizer()
+        new CommandLine(optimizer).parseArgs("-b", "-n", "2", "-l", "2", "-k", "3", "--seed", "42")
+
+        when:
+        def results = optimizer.optimize()
+
+        then:
+        results.size() == 3
+        results*.fitness == results*.fitness.sort()
+        results*.canonicalKey.unique().size() == 3
+
+        and:
+        def scheduler = Scheduler.load(Paths.get("DD8.puml"), 35)
+        def tournament = new Tournament(scheduler, Team.loadTeams(Paths.get("input.csv")))
+        def slots = tournament.calcSeedingSlots()
+        results.every {
+            def summary = scheduler.evaluate(tournament.toTeamAssignment(slots, it.seeding, 0))
+            summary.maxEndTime == it.maxEndTime && summary.maxNumFields == it.maxNumFields
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package edu.robocup.ssl
+
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Paths
+import java.nio.file.attribute.FileTime
+
+class PlanningServerSpec extends Specification {
+
+    def "Requests are answered like the planner"() {
+        given:
+        def server = new PlanningServer()
+        def teams = Team.loadTeams(Paths.get("input.csv"))
+        def scheduler = Scheduler.load(Paths.get("DD8.puml"), 35)
+        def teamIds = [3, 10, 5, 16, 1, 12, 7, 14]
+        def expected = scheduler.evaluate(new Tournament(scheduler, teams).calcTeamAssignment(teamIds))
+
+        when:
+        def evaluated = Json.parse(server.handle('{"id": 7, "op": "evaluate", "teamIds": ' + teamIds + '}'))
+        def planned = Json.parse(server.handle('{"id": "x", "op": "plan", "schedules": 2, "teamIds": ' + teamIds + '}'))
+        def invalid = Json.parse(server.handle('{"id": 8, "teamIds": [0, 1]}'))
+
+        then:
+        evaluated.id == 7
+        evaluated.ok
+        evaluated.maxEndTime == expected.maxEndTime
+        evaluated.maxNumFields == expected.maxNumFields
+        evaluated.numSchedules == expected.numSchedules
+        evaluated.micros >= 0
+        planned.id == "x"
+        planned.maxEndTime == expected.maxEndTime
+        planned.schedules.size() == 2
+        planned.schedules.every { it.size() == scheduler.bracket.size() }
+        !invalid.ok
+        invalid.error.contains("8 teams")
+        server.stats().brackets == 1
+        server.stats().teamSets == 1
+        server.stats().requests == 3
+        server.stats().errors == 1
+    }
+
+    def "Concurrent requests on a stream are all answered"() {
+        given:
+        def server = new PlanningServer()
+        def requests = (0..<20).collect { '{"id": ' + it + ', "bounded": true, "teamIds": [' + it % 9 + ', 9, 10, 11, 12, 13, 14, 15]}' }
+        def out = new ByteArrayOutputStream()
+
+        when:
+        server.start()
+        server.serve(new ByteArrayInputStream((requests + ['not json']).join("\n").getBytes(StandardCharsets.UTF_8)), out)
+        server.stop()
+        def responses = out.toString(StandardCharsets.UTF_8).readLines().collect { Json.parse(it) }
+
+        then:
+        responses.size() == 21
+        responses.findAll { it.ok }*.id.toSet() == (0L..<20L).toSet()
+        responses.count { !it.ok } == 1
+        responses.findAll { it.ok }.every { it.numSchedules == 8192 }
+    }
+
+    def "Changed files replace the loaded ones and their schedulers"() {
+        given:
+        def server = new PlanningServer()
+        def dir = Files.createTempDirectory("serve")
+        def diagram = Files.copy(Paths.get("DD8.puml"), dir.resolve("DD8.puml"))
+        def teams = Files.copy(Paths.get("input.csv"), dir.resolve("input.csv"))
+        def request = '{"tournamentDiagramFile": "' + diagram + '", "teamsInputFile": "' + teams + '"}'
+
+        when:
+        def first = Json.parse(server.handle(request))
+        def bounded = Json.parse(server.handle(request.replace('}', ', "bounded": true}')))
+        [diagram, teams].each { Files.setLastModifiedTime(it, FileTime.fromMillis(Files.getLastModifiedTime(it).toMillis() + 1000)) }
+        def reloaded = Json.parse(server.handle(request))
+
+        then:
+        first.ok && bounded.ok && reloaded.ok
+        reloaded.maxEndTime == first.maxEndTime
+        server.stats().brackets == 1
+        server.stats().teamSets == 1
+        server.stats().schedulers == 1
+    }
+
+    def "Only the most recently used schedulers are kept"() {
+        given:
+        def server = new PlanningServer()
+        server.maxSchedulers = 2
+
+        when:
+        def responses = (30..34).collect { Json.parse(server.handle('{"initialStart": ' + it + ', "bounded": true}')) }
+
+        then:
+        responses.every { it.ok }
+        server.stats().schedulers == 2
+    }
+
+    def "Errors thrown by a request are answered"() {
+        given:
+        def server = new PlanningServer()
+        def nested = '{"teamIds": ' + '[' * 100_000 + ']' * 100_000 + '}'
+        def out = new ByteArrayOutputStream()
+
+        when:
+        server.start()
+        server.serve(new ByteArrayInputStream([nested, '{"id": 1}'].join("\n").getBytes(StandardCharsets.UTF_8)), out)
+        server.stop()
+        def responses = out.toString(StandardCharsets.UTF_8).readLines().collect { Json.parse(it) }
+
+        then:
+        responses.size() == 2
+        responses.count { it.ok } == 1
+        server.stats().errors == 1
+    }
+}
@@ -0,0 +1,81 @@
+package edu.robocup.ssl
+
+import spock.lang.Specification
+
+import javax.management.ObjectName
+import java.lang.management.ManagementFactory
+
+class ProcessorMetricsSpec extends Specification {
+
+    def "Merges the counters of all worker threads"() {
+        given:
+        def metrics = new ProcessorMetrics()
+        metrics.queueDepth = { 3 }
+
+        when:
+        def threads = (0..<2).collect { worker ->
+            Thread.start {
+                100.times { metrics.recordSeeding(new ScheduleSummary(5, 60, 2, 0, 40), 1_500_000) }
+            }
+        }
+        threads*.join()
+        metrics.recordSeeding(new ScheduleSummary(1, 60, 2, 0, 7), 500)
+        def text = metrics.toPrometheusText()
+
+        then:
+        metrics.numSeedings == 201
+        metrics.numSchedules == 1001
+        metrics.numSearchNodes == 8007
+        metrics.numWorkers == 3
+        metrics.workerBusyMillis == 300
+        metrics.durationCounts[0] == 1
+        metrics.durationCounts[11] == 200
+        text.contains("ssl_seedings_total 201\n")
+        text.contains("ssl_queue_depth 3\n")
+        text.contains("ssl_seeding_duration_seconds_bucket{le=\"+Inf\"} 201\n")
+        text.contains("ssl_seeding_duration_seconds_count 201\n")
+        text.readLines().count { it.startsWith("ssl_worker_busy_seconds_total{") } == 3
+    }
+
+    def "Folds the counters of workers that ended"() {
+        given:
+        def metrics = new ProcessorMetrics()
+        metrics.recordSeeding(new ScheduleSummary(1, 60, 2, 0, 7), 500)
+
+        when:
+        3.times {
+            (0..<2).collect { Thread.start { 10.times { metrics.recordSeeding(new ScheduleSummary(5, 60, 2, 0, 40), 1_500_000) } } }*.join()
+            metrics.foldEndedStripes()
+        }
+        def text = metrics.toPrometheusText()
+
+        then:
+        metrics.numSeedings == 61
+        metrics.numSchedules == 301
+        metrics.numWorkers == 1
+        metrics.workerBusyMillis == 90
+        metrics.durationCounts[11] == 60
+        text.readLines().count { it.startsWith("ssl_worker_busy_seconds_total{") } == 1
+    }
+
+    def "Exposes the metrics as MBean and over HTTP"() {
+        given:
+        def metrics = new ProcessorMetrics()
+        metrics.recordSeeding(new ScheduleSummary(4, 60, 2, 0, 9), 1000)
+        metrics.register()
+        def server = new MetricsServer(metrics, 0)
+
+        when:
+        def numSeedings = ManagementFactory.platformMBeanServer
+                .getAttribute(new ObjectName("edu.robocup.ssl:type=Processor"), "NumSeedings")
+        def text = new URL("http://localhost:${server.port}/metrics").text
+
+        then:
+        numSeedings == 1
+        text.contains("ssl_schedules_total 4\n")
+
+        cleanup:
+        server?.close()
+        metrics.unregister()
+    }
+}
@@ -0,0 +1,77 @@
+package edu.robocup.ssl
+
+import spock.lang.Specification
+
+import java.nio.file.Paths
+
+class ReplannerSpec extends Specification {
+
+    def "Results keep exactly the consistent outcomes"() {
+        given:
+        def teams = Team.loadTeams(Paths.get("input.csv"))
+        def scheduler = Scheduler.load(Paths.get("DD8.puml"), 35)
+        def teamAssignment = new Tournament(scheduler, teams).calcTeamAssignment([0, 1, 2, 3, 4, 5, 6, 7])
+        def allSchedules = scheduler.findAllSchedules(teamAssignment)
+        def played = allSchedules[1234]
+        def results = ["UR1_1", "UR1_3", "UR2_1", "LR1_1"].collect { result(scheduler, played, it) }
+        scheduler.setTranspositionCache(cacheSize > 0 ? new TranspositionCache(cacheSize) : null)
+        def replanner = new Replanner(scheduler, teamAssignment)
+
+        when:
+        def summaries = results.collect { replanner.record(it) }
+        def consistent = allSchedules.findAll { schedule ->
+            results.every { winner(scheduler, schedule, it.match) == it.winner }
+        }
+
+        then:
+        summaries*.numSchedules == [4096, 2048, 512, 256]
+        summaries.last() == ScheduleSummary.of(consistent)
+        replanner.findSchedules(Integer.MAX_VALUE).toSet() == consistent.toSet()
+
+        where:
+        cacheSize << [0, 100_000]
+    }
+
+    def "Played matches keep their real start time"() {
+        given:
+        def teams = Team.loadTeams(Paths.get("input.csv"))
+        def scheduler = Scheduler.load(Paths.get("DD8.puml"), 35)
+        def teamAssignment = new Tournament(scheduler, teams).calcTeamAssignment([0, 1, 2, 3, 4, 5, 6, 7])
+        def replanner = new Replanner(scheduler, teamAssignment)
+        def teamA = teamAssignment.find { it.key.name == "UR1_2" }.value[0].name
+
+        when:
+        replanner.record(new MatchResult("UR1_2", 40, teamA))
+        replanner.record(new MatchResult("UR1_2", 50, teamA))
+
+        then:
+        replanner.results == [new MatchResult("UR1_2", 50, teamA)]
+        replanner.findSchedules(100).every { it.assignmentMap.UR1_2.startTime == 50 }
+        replanner.summary.maxEndTime >= scheduler.evaluate(teamAssignment).maxEndTime
+
+        when:
+        replanner.record(new MatchResult("UR1_1", 36, teamA))
+
+        then:
+        thrown(IllegalArgumentException)
+        replanner.results == [new MatchResult("UR1_2", 50, teamA)]
+
+        when: "the start time does not fit into 16 bits"
+        def teamB = teamAssignment.find { it.key.name == "UR1_1" }.value[0].name
+        replanner.record(new MatchResult("UR1_1", 100_000, teamB))
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message.contains("too late")
+        replanner.results == [new MatchResult("UR1_2", 50, teamA)]
+    }
+
+    private static MatchResult result(Scheduler scheduler, Schedule schedule, String match) {
+        new MatchResult(match, schedule.assignmentMap[match].startTime, winner(scheduler, schedule, match))
+    }
+
+    private static String winner(Scheduler scheduler, Schedule schedule, String match) {
+        def followUp = scheduler.bracket.matches.find { it.name == match }.winnerFollowUp.name
+        schedule.assignmentMap[match].teams.find { it in schedule.assignmentMap[followUp].teams }.name
+    }
+}
@@ -0,0 +1,112 @@
+package edu.robocup.ssl
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+class ResultStoreSpec extends Specification {
+
+    def "Queries records appended before reopening the store"() {
+        given:
+        def file = Files.createTempDirectory("results").resolve("run.results")
+        def store = ResultStore.open(file, 2)
+        def numRecords = ResultStore.BLOCK_SIZE * 2 + 10
+        (0..<numRecords).each {
+            def endTime = it == 5000 ? 90 : 40 + it % 30
+            store.append(it, [it % 16, 15 - it % 16] as int[], [new ScheduleSummary(3, endTime, it % 4, 0)] as ScheduleSummary[])
+        }
+        store.close()
+
+        when:
+        store = ResultStore.open(file, 2)
+
+        then:
+        store.size() == numRecords
+        store.get(17).with { [combination, teamIds.toList(), maxEndTime, maxNumFields, numSchedules] } == [17, [1, 14], 57, 1, 3]
+        store.worst(3)*.index == [5000L, 59L, 119L]
+        store.endTimeAbove(68)*.index == (0..<numRecords).findAll { it == 5000 || it % 30 == 29 }.collect { it as long }
+
+        cleanup:
+        store.close()
+    }
+
+    def "Maps records in segments that grow with the store"() {
+        given:
+        def file = Files.createTempDirectory("results").resolve("run.results")
+        def segmentSize = 1 << 16
+        def store = ResultStore.open(file, 2, segmentSize)
+        def numRecords = ResultStore.BLOCK_SIZE * 17 + 5
+        (0..<numRecords).each {
+            store.append(it, [it % 16, 15 - it % 16] as int[], [new ScheduleSummary(it, 40 + it % 30, it % 4, 0)] as ScheduleSummary[])
+        }
+        store.close()
+
+        when:
+        store = ResultStore.openReadOnly(file, 2, segmentSize)
+
+        then:
+        store.size() == numRecords
+        (0..<numRecords).every { i -> store.get(i).with { combination == i && numSchedules == i && maxEndTime == 40 + i % 30 } }
+        store.endTimeAbove(68).size() == (0..<numRecords).count { it % 30 == 29 }
+
+        cleanup:
+        store.close()
+    }
+
+    def "Drops records of combinations missing in the checkpoint"() {
+        given:
+        def file = Files.createTempDirectory("results").resolve("run.results")
+        def store = ResultStore.open(file, 1)
+        [3, 1, 4, 5].each {
+            store.append(it, [it, it] as int[], [new ScheduleSummary(1, 60 + it, 1, 0)] * 2 as ScheduleSummary[])
+        }
+        def completed = new BitSet()
+        completed.set(1)
+        completed.set(3)
+
+        when:
+        store.truncate(completed)
+
+        then:
+        store.size() == 4
+        store.worst(10)*.combination == [3, 3, 1, 1]
+        store.endTimeAbove(61)*.combination == [3, 3]
+
+        cleanup:
+        store.close()
+    }
+
+    def "Queries a store read-only while it is written"() {
+        given:
+        def file = Files.createTempDirectory("results").resolve("run.results")
+        def writer = ResultStore.open(file, 1)
+        writer.append(7, [1, 2, 3] as int[], [new ScheduleSummary(1, 70, 2, 0)] * 3 as ScheduleSummary[])
+        writer.sync()
+        def size = Files.size(file)
+
+        when:
+        def reader = ResultStore.openReadOnly(file, 1)
+        def worst = reader.worst(1)
+        reader.close()
+
+        then:
+        reader.size() == 3
+        worst*.maxEndTime == [70]
+        Files.size(file) == size
+
+        when:
+        ResultStore.openReadOnly(file, 1).withCloseable { it.truncate(0) }
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        ResultStore.openReadOnly(file.resolveSibling("missing.results"), 1)
+
+        then:
+        thrown(IOException)
+
+        cleanup:
+        writer.close()
+    }
+}
@@ -0,0 +1,279 @@
+package edu.robocup.ssl
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Paths
+
+class SchedulerSpec extends Specification {
+
+    def "Compiled engine matches legacy engine"() {
+        given:
+        def teams = Team.loadTeams(Paths.get("input.csv"))
+        def scheduler = Scheduler.load(Paths.get(diagram), 35)
+        def teamAssignment = new Tournament(scheduler, teams).calcTeamAssignment(teamIds)
+
+        when:
+        scheduler.setEngine(Scheduler.Engine.LEGACY)
+        def legacySchedules = scheduler.findAllSchedules(teamAssignment)
+        def legacy = ScheduleSummary.of(legacySchedules)
+        scheduler.setEngine(Scheduler.Engine.COMPILED)
+        def compiledSchedules = scheduler.findAllSchedules(teamAssignment)
+        def compiled = scheduler.evaluate(teamAssignment)
+        def parallel = scheduler.evaluateParallel(teamAssignment, 4)
+
+        then:
+        compiled == legacy
+        parallel == legacy
+        ScheduleSummary.of(compiledSchedules) == legacy
+        compiledSchedules.collect { it.findMaxEndTime() }.sort() == legacySchedules.collect { it.findMaxEndTime() }.sort()
+
+        where:
+        diagram    | teamIds
+        "DD8.puml" | [0, 1, 2, 3, 4, 5, 6, 7]
+        "DD8.puml" | [8, 9, 10, 11, 12, 13, 14, 15]
+        "DD8.puml" | [3, 10, 5, 16, 1, 12, 7, 14]
+        "DD9.puml" | [0, 1, 2, 3, 4, 5, 6, 7, 8, 9]
+    }
+
+    def "Batch engine matches compiled engine"() {
+        given:
+        def teams = Team.loadTeams(Paths.get("input.csv"))
+        def scheduler = Scheduler.load(Paths.get(diagram), 35)
+        def teamAssignments = new Tournament(scheduler, teams).calcTeamAssignmentCombinations(teamIds).take(12)
+
+        when:
+        def compiled = teamAssignments.collect { scheduler.evaluate(it) }
+        scheduler.setEngine(Scheduler.Engine.BATCH)
+        def batched = teamAssignments.collect { scheduler.evaluate(it) }
+
+        then:
+        batched == compiled
+        batched.every { it.numSchedules == (diagram == "DD8.puml" ? 8192 : 131072) }
+
+        where:
+        diagram    | teamIds
+        "DD8.puml" | [0, 1, 2, 3, 4, 5, 6, 7]
+        "DD8.puml" | [3, 10, 5, 16, 1, 12, 7, 14]
+        "DD9.puml" | [0, 1, 2, 3, 4, 5, 6, 7, 8, 9]
+    }
+
+    def "Outcome template replays the depth-first search"() {
+        given:
+        def teams = Team.loadTeams(Paths.get("input.csv"))
+        def scheduler = Scheduler.load(Paths.get(diagram), 35)
+        scheduler.setMaxFields(fields)
+        def teamAssignments = new Tournament(scheduler, teams).calcTeamAssignmentCombinations(teamIds).take(12)
+        def template = OutcomeTemplate.compile(scheduler.bracket)
+
+        when:
+        def replayed = teamAssignments.collect { template.evaluate(it, 35, fields) }
+        def searched = teamAssignments.collect { scheduler.evaluateParallel(it, 0) }
+
+        then:
+        template.numSlots == teamIds.size()
+        replayed == searched
+        replayed*.numNodes == searched*.numNodes
+
+        where:
+        diagram    | teamIds                        | fields
+        "DD8.puml" | [0, 1, 2, 3, 4, 5, 6, 7]       | 0
+        "DD8.puml" | [3, 10, 5, 16, 1, 12, 7, 14]   | 2
+        "DD9.puml" | [0, 1, 2, 3, 4, 5, 6, 7, 8, 9] | 0
+        "DD9.puml" | [0, 1, 2, 3, 4, 5, 6, 7, 8, 9] | 3
+    }
+
+    def "Packed schedules expand to the same match assignments"() {
+        given:
+        def teams = Team.loadTeams(Paths.get("input.csv"))
+        def scheduler = Scheduler.load(Paths.get("DD8.puml"), 35)
+        def teamAssignment = new Tournament(scheduler, teams).calcTeamAssignment([0, 1, 2, 3, 4, 5, 6, 7])
+
+        when:
+        scheduler.setEngine(Scheduler.Engine.LEGACY)
+        def legacySchedules = scheduler.findAllSchedules(teamAssignment)
+        scheduler.setEngine(Scheduler.Engine.COMPILED)
+        def packedSchedules = scheduler.findAllSchedules(teamAssignment)
+
+        then:
+        def packed = packedSchedules.collect { normalize(it) }.toSet()
+        def legacy = legacySchedules.collect { normalize(it) }.toSet()
+        packed.size() == 8192
+        packed == legacy
+        packedSchedules.collect { it.findMaxNumFields() }.sort() == legacySchedules.collect { it.findMaxNumFields() }.sort()
+    }
+
+    /**
+     * The order of the two teams of a match depends on the engine.
+     */
+    private static String normalize(Schedule schedule) {
+        schedule.assignmentMap.values()
+                .collect { "${it.match.name}@${it.startTime}:${it.teams*.name.sort()}" }
+                .sort()
+                .join(" ")
+    }
+
+    def "Bounded search finds the same maxima"() {
+        given:
+        def teams = Team.loadTeams(Paths.get("input.csv"))
+        def scheduler = Scheduler.load(Paths.get(diagram), 35)
+        def teamAssignment = new Tournament(scheduler, teams).calcTeamAssignment(teamIds)
+        def exhaustive = scheduler.evaluate(teamAssignment)
+
+        when:
+        scheduler.setBounded(true)
+        def bounded = scheduler.evaluate(teamAssignment)
+        def boundedParallel = scheduler.evaluateParallel(teamAssignment, 3)
+
+        then:
+        bounded.numSchedules == exhaustive.numSchedules
+        bounded.maxEndTime == exhaustive.maxEndTime
+        bounded.maxNumFields == exhaustive.maxNumFields
+        bounded.numPruned > 0
+        bounded == exhaustive
+        boundedParallel.numSchedules == exhaustive.numSchedules
+        boundedParallel.maxEndTime == exhaustive.maxEndTime
+        boundedParallel.maxNumFields == exhaustive.maxNumFields
+        boundedParallel == exhaustive
+
+        where:
+        diagram    | teamIds
+        "DD8.puml" | [0, 1, 2, 3, 4, 5, 6, 7]
+        "DD8.puml" | [8, 9, 10, 11, 12, 13, 14, 15]
+        "DD8.puml" | [3, 10, 5, 16, 1, 12, 7, 14]
+        "DD9.puml" | [0, 1, 2, 3, 4, 5, 6, 7, 8, 9]
+    }
+
+    def "Transposition cache finds the same maxima"() {
+        given:
+        def teams = Team.loadTeams(Paths.get("input.csv"))
+        def scheduler = Scheduler.load(Paths.get(diagram), 35)
+        def tournament = new Tournament(scheduler, teams)
+        def teamAssignments = tournament.calcTeamAssignmentCombinations(teamIds).take(24)
+        def exhaustive = teamAssignments.collect { scheduler.evaluate(it) }
+        def cache = new TranspositionCache(cacheSize)
+
+        when:
+        scheduler.setTranspositionCache(cache)
+        def cached = teamAssignments.collect { scheduler.evaluate(it) }
+
+        then:
+        cached.collect { it.maxEndTime } == exhaustive.collect { it.maxEndTime }
+        cached.collect { it.maxNumFields } == exhaustive.collect { it.maxNumFields }
+        cached.collect { it.numSchedules } == exhaustive.collect { it.numSchedules }
+        cache.hits > 0
+
+        where:
+        diagram    | teamIds                         | cacheSize
+        "DD8.puml" | [0, 1, 2, 3, 4, 5, 6, 7]        | 100_000
+        "DD8.puml" | [3, 10, 5, 16, 1, 12, 7, 14]    | 100_000
+        "DD8.puml" | [8, 9, 10, 11, 12, 13, 14, 15]  | 100
+        "DD9.puml" | [0, 1, 2, 3, 4, 5, 6, 7, 8, 9] | 100_000
+    }
+
+    def "Packed summaries keep their counts"() {
+        given:
+        def teams = Team.loadTeams(Paths.get("input.csv"))
+        def scheduler = Scheduler.load(Paths.get("DD8.puml"), 35)
+        def summary = scheduler.evaluate(new Tournament(scheduler, teams).calcTeamAssignment([0, 1, 2, 3, 4, 5, 6, 7]))
+
+        expect:
+        CompiledScheduler.unpackSummary(CompiledScheduler.packSummary(summary)) == summary
+        summary.numSchedules == 8192
+    }
+
+    def "Limited fields are never overbooked"() {
+        given:
+        def teams = Team.loadTeams(Paths.get("input.csv"))
+        def scheduler = Scheduler.load(Paths.get(diagram), 35)
+        def teamAssignment = new Tournament(scheduler, teams).calcTeamAssignment(teamIds)
+        def unlimited = scheduler.evaluate(teamAssignment)
+
+        when:
+        scheduler.setMaxFields(fields)
+        def schedules = scheduler.findAllSchedules(teamAssignment)
+        def limited = scheduler.evaluate(teamAssignment)
+        scheduler.setTranspositionCache(new TranspositionCache(100_000))
+        def cached = scheduler.evaluate(teamAssignment)
+
+        then:
+        schedules.every { it.findMaxNumFields() <= fields }
+        schedules.every { schedule ->
+            schedule.assignmentMap.values().countBy { it.startTime }.values().max() <= fields
+        }
+        limited.maxNumFields <= fields
+        limited.maxEndTime >= unlimited.maxEndTime
+        cached.maxEndTime == limited.maxEndTime
+        cached.maxNumFields == limited.maxNumFields
+
+        where:
+        diagram    | teamIds                        | fields
+        "DD8.puml" | [0, 1, 2, 3, 4, 5, 6, 7]       | 1
+        "DD8.puml" | [0, 1, 2, 3, 4, 5, 6, 7]       | 2
+        "DD9.puml" | [0, 1, 2, 3, 4, 5, 6, 7, 8, 9] | 3
+    }
+
+    def "Enough fields do not change the schedules"() {
+        given:
+        def teams = Team.loadTeams(Paths.get("input.csv"))
+        def scheduler = Scheduler.load(Paths.get("DD8.puml"), 35)
+        def teamAssignment = new Tournament(scheduler, teams).calcTeamAssignment([0, 1, 2, 3, 4, 5, 6, 7])
+        def unlimited = scheduler.evaluate(teamAssignment)
+
+        when:
+        scheduler.setMaxFields(unlimited.maxNumFields)
+
+        then:
+        scheduler.evaluate(teamAssignment) == unlimited
+    }
+
+    def "Limited fields are rejected up front by engines that do not support them"() {
+        given:
+        def scheduler = Scheduler.load(Paths.get("DD8.puml"), 35)
+
+        when:
+        scheduler.setEngine(Scheduler.Engine.LEGACY)
+        scheduler.setMaxFields(2)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        scheduler.setEngine(Scheduler.Engine.COMPILED)
+        scheduler.setMaxFields(2)
+        scheduler.setEngine(Scheduler.Engine.LEGACY)
+
+        then:
+        thrown(IllegalArgumentException)
+        scheduler.engine == Scheduler.Engine.COMPILED
+    }
+
+    def "Compiled bracket files load the same bracket"() {
+        given:
+        def teams = Team.loadTeams(Paths.get("input.csv"))
+        def file = Files.createTempFile("bracket", ".bracket")
+        def scheduler = Scheduler.load(Paths.get(diagram), 35)
+        BracketFile.write(scheduler.bracket, file)
+
+        when:
+        def loaded = Scheduler.load(file, 35)
+        def teamAssignment = new Tournament(loaded, teams).calcTeamAssignment(teamIds)
+
+        then:
+        loaded.bracket.matches*.name == scheduler.bracket.matches*.name
+        loaded.bracket.predecessors == scheduler.bracket.predecessors
+        loaded.bracket.followUps == scheduler.bracket.followUps
+        loaded.bracket.suffixWidth == scheduler.bracket.suffixWidth
+        loaded.teamDemand.collectEntries { [it.key.name, it.value] } == scheduler.teamDemand.collectEntries { [it.key.name, it.value] }
+        loaded.evaluate(teamAssignment) == scheduler.evaluate(teamAssignment)
+        loaded.with { engine = Scheduler.Engine.LEGACY; evaluate(teamAssignment) } == scheduler.evaluate(teamAssignment)
+
+        cleanup:
+        Files.deleteIfExists(file)
+
+        where:
+        diagram    | teamIds
+        "DD8.puml" | [0, 1, 2, 3, 4, 5, 6, 7]
+        "DD9.puml" | [0, 1, 2, 3, 4, 5, 6, 7, 8, 9]
+    }
+}
@@ -0,0 +1,107 @@
+package edu.robocup.ssl
+
+import org.apache.commons.math3.util.CombinatoricsUtils
+import spock.lang.Specification
+
+import java.nio.file.Paths
+
+class SeedingGeneratorSpec extends Specification {
+
+    def "Generates the same team mappings as the eager combinations"() {
+        given:
+        def teams = Team.loadTeams(Paths.get("input.csv"))
+        def scheduler = Scheduler.load(Paths.get("DD8.puml"), 35)
+        def tournament = new Tournament(scheduler, teams)
+        def slots = tournament.calcSeedingSlots()
+        def numFixed = slots.length - scheduler.teamDemand.size()
+        def generator = new SeedingGenerator(9, 8, numFixed, 5, new BitSet())
+
+        when:
+        def batches = generator.collect()
+        def firstCombination = batches.findAll { it.combination.index == 0 }
+        def mappings = firstCombination.collectMany { batch ->
+            (0..<batch.numSeedings).collect { tournament.toTeamAssignment(slots, batch.teamIds, it * slots.length) }
+        }
+
+        then:
+        batches.collect { it.combination.index }.unique() == (0..<9).toList()
+        firstCombination.collect { it.numSeedings } == [5, 5, 5, 5, 4]
+        firstCombination.collect { it.firstSeeding } == [0, 5, 10, 15, 20]
+        mappings.toSet() == tournament.calcTeamAssignmentCombinations([0, 1, 2, 3, 4, 5, 6, 7]).toSet()
+        mappings.size() == 24
+    }
+
+    def "Generates one weighted seeding per class of equivalent seedings"() {
+        given: "teams with only three different availabilities, so many seedings are equivalent"
+        def teams = (0..<12).collect { new Team("t" + it, 6 + it % 3, 20 + it % 3) }
+        def scheduler = Scheduler.load(Paths.get("DD8.puml"), 35)
+        def tournament = new Tournament(scheduler, teams)
+        def slots = tournament.calcSeedingSlots()
+        def numFixed = slots.length - scheduler.teamDemand.size()
+        def key = { int[] seeding -> scheduler.symmetry.canonicalKey(tournament.toTeamAssignment(slots, seeding, 0)) }
+        def generator = new SeedingGenerator(12, 8, numFixed, 5, new BitSet())
+        generator.canonicalKey = key
+
+        when:
+        def batches = generator.collect()
+        def all = new SeedingGenerator(12, 8, numFixed, 24, new BitSet()).collect()
+        def keysOf = { List<SeedingBatch> combinationBatches ->
+            combinationBatches.collectMany { batch ->
+                (0..<batch.numSeedings).collect { key(batch.teamIds[it * 8..<(it + 1) * 8] as int[]) }
+            }
+        }
+
+        then:
+        batches.groupBy { it.combination.index }.every { index, combinationBatches ->
+            def combination = combinationBatches[0].combination
+            def keys = keysOf(combinationBatches)
+            def expected = keysOf(all.findAll { it.combination.index == index })
+            keys == (0..<combination.numSeedings).collect { combination.getCanonicalKey(it) } &&
+                    keys == expected.unique(false) &&
+                    (0..<combination.numSeedings).every { combination.getWeight(it) == expected.count(keys[it]) }
+        }
+        batches.sum { it.numSeedings } < all.sum { it.numSeedings }
+    }
+
+    def "Skips completed combinations"() {
+        given:
+        def skipped = new BitSet()
+        skipped.set(0, 3)
+        skipped.set(5)
+
+        when:
+        def indexes = new SeedingGenerator(9, 8, 4, 24, skipped).collect { it.combination.index }
+
+        then:
+        indexes == [3, 4, 6, 7, 8]
+    }
+
+    def "Ranges of ranks enumerate the combinations in the order of the combinations iterator"() {
+        given:
+        def expected = CombinatoricsUtils.combinationsIterator(10, 8).collect { it.toList() }
+        def seedings = { Iterator<SeedingBatch> generator ->
+            generator.collect().findAll { it.firstSeeding == 0 }.collect { it.teamIds.toList().subList(0, 8) }
+        }
+
+        when:
+        def ranges = [[0, 7], [7, 8], [8, 45]].collectMany { first, end ->
+            seedings(new SeedingGenerator(8, 8, 24, first, end, new BitSet()))
+        }
+
+        then:
+        ranges == expected
+        seedings(new SeedingGenerator(10, 8, 8, 24, new BitSet())) == expected
+    }
+
+    def "Collects the results of all batches of a combination"() {
+        given:
+        def combination = new SeedingBatch.Combination(7, 5, 2)
+        def summary = new ScheduleSummary(1, 60, 2, 0)
+
+        expect:
+        !combination.record(0, [0, 1, 1, 0] as int[], [summary, summary] as ScheduleSummary[])
+        combination.record(2, [0, 2, 2, 0, 1, 2] as int[], [summary, summary, summary] as ScheduleSummary[])
+        combination.summaries.toList() == [summary] * 5
+        combination.teamIds.toList() == [0, 1, 1, 0, 0, 2, 2, 0, 1, 2]
+    }
+}
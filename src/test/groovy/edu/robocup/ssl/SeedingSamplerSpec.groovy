@@ -0,0 +1,40 @@
+package edu.robocup.ssl
+
+import org.apache.commons.math3.util.CombinatoricsUtils
+import spock.lang.Specification
+
+class SeedingSamplerSpec extends Specification {
+
+    def "Ranks follow the order of the combinations iterator"() {
+        given:
+        def combinations = CombinatoricsUtils.combinationsIterator(9, 4).collect { it.toList() }
+
+        expect:
+        combinations.size() == Combinations.count(9, 4)
+        combinations.withIndex().every { combination, rank ->
+            Combinations.rank(combination as int[]) == rank && Combinations.unrank(rank, 4).toList() == combination
+        }
+        Combinations.unrank(Combinations.count(30, 16) - 1, 16).toList() == (14..<30).toList()
+    }
+
+    def "Spreads the samples evenly over the strata"() {
+        given:
+        def sampler = new SeedingSampler(30, 8, 4, 5, 7, 100, 42)
+
+        when:
+        def batches = sampler.collect()
+        def seedings = batches.collectMany { batch ->
+            (0..<batch.numSeedings).collect { batch.teamIds[it * 8..<(it + 1) * 8] }
+        }
+        def stratumSizes = batches.groupBy { it.combination.index }.collectEntries { k, v -> [k, v.sum { it.numSeedings }] }
+
+        then:
+        sampler.numStrata == 7
+        Math.abs(sampler.stratumWeights.sum() - 1) < 1e-9
+        stratumSizes == [0: 15, 1: 15, 2: 14, 3: 14, 4: 14, 5: 14, 6: 14]
+        batches.every { it.numSeedings <= 5 }
+        seedings.size() == 100
+        seedings.every { it.every { id -> id >= 0 && id < 30 } && it.toSet().size() == 8 }
+        seedings.every { it[0..<4] == it[0..<4].sort() && it[0..<4].max() < it[4..<8].min() }
+    }
+}
@@ -0,0 +1,125 @@
+package edu.robocup.ssl
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.function.LongSupplier
+
+class SweepSpec extends Specification {
+
+    static final List<String> PROCESS = ["process", "-b", "--poolSize", "10", "-n", "1"]
+
+    def "Partitions the ranks that are not completed"() {
+        given:
+        def completed = new BitSet()
+        completed.set(2, 5)
+        completed.set(9)
+
+        expect:
+        SweepCoordinator.partition(completed, 12, 3).collect { [it.first, it.end] } ==
+                [[0, 2], [5, 8], [8, 9], [10, 12]]
+        SweepCoordinator.partition(new BitSet(), 4, 8).collect { [it.first, it.end] } == [[0, 4]]
+    }
+
+    def "Worker processes sweep all ranges and the range of a failed worker is reassigned"() {
+        given:
+        def dir = Files.createTempDirectory("sweep")
+        def port = new ServerSocket(0).withCloseable { it.localPort }
+        def local = java(dir.resolve("local.log").toFile(), PROCESS)
+        def coordinator = java(dir.resolve("coordinator.log").toFile(),
+                PROCESS + ["--listen", port as String, "--rangeSize", "4"])
+
+        when: "a worker fails after receiving its first range"
+        def firstRange = connect(port).withCloseable { socket ->
+            def input = new DataInputStream(socket.inputStream)
+            assert input.readInt() == SweepCoordinator.MAGIC
+            assert input.readInt() == SweepCoordinator.VERSION
+            input.readUTF()
+            assert input.readByte() == SweepCoordinator.RANGE
+            [input.readLong(), input.readLong()]
+        }
+        def workers = (0..<2).collect { java(dir.resolve("worker${it}.log").toFile(), PROCESS + ["--connect", port as String]) }
+
+        then:
+        [local, coordinator, *workers].every { it.waitFor(5, TimeUnit.MINUTES) && it.exitValue() == 0 }
+        firstRange == [0, 4]
+        summary(dir.resolve("coordinator.log")) == summary(dir.resolve("local.log"))
+        summary(dir.resolve("local.log")).contains("Num tournaments: 1080")
+        Files.readString(dir.resolve("coordinator.log")).contains("Sweep: 0 workers, 0/12 ranges remaining, 1 reassigned")
+        workers.indices.sum { (Files.readString(dir.resolve("worker${it}.log")) =~ /Evaluated (\d+) ranges/)[0][1] as int } == 12
+
+        cleanup:
+        [local, coordinator, *(workers ?: [])].each { it?.destroyForcibly() }
+    }
+
+    def "The range of a worker that stops making progress is reassigned"() {
+        given:
+        def merged = []
+        def coordinator = new SweepCoordinator(0, "run", [new SweepCoordinator.Range(0, 1)], 2500,
+                { range, aggregates -> merged << range } as SweepCoordinator.RangeConsumer)
+        def started = new CountDownLatch(1)
+        def hung = new CountDownLatch(1)
+        def hungWorker = Thread.start {
+            try {
+                new SweepWorker("run", { first, end -> started.countDown(); hung.await(); new Evaluator() } as SweepWorker.RangeSweep,
+                        { 0L } as LongSupplier).run(coordinator.port)
+            } catch (IOException ignored) {
+                // the coordinator gave up on this worker
+            }
+        }
+
+        when:
+        started.await()
+        def numRanges = new SweepWorker("run", { first, end -> new Evaluator() } as SweepWorker.RangeSweep,
+                { 0L } as LongSupplier).run(coordinator.port)
+        coordinator.awaitCompletion()
+
+        then:
+        numRanges == 1
+        merged == [new SweepCoordinator.Range(0, 1)]
+        coordinator.numReassigned == 1
+
+        cleanup:
+        hung.countDown()
+        hungWorker?.join()
+        coordinator?.close()
+    }
+
+    private static Process java(File log, List<String> args) {
+        def java = Paths.get(System.getProperty("java.home"), "bin", "java").toString()
+        new ProcessBuilder([java, "-cp", System.getProperty("java.class.path"), App.name] + args)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start()
+    }
+
+    /**
+     * Connect once the coordinator listens.
+     */
+    private static Socket connect(int port) {
+        def deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1)
+        while (true) {
+            try {
+                return new Socket(InetAddress.loopbackAddress, port)
+            } catch (ConnectException e) {
+                if (System.nanoTime() > deadline) {
+                    throw e
+                }
+                Thread.sleep(100)
+            }
+        }
+    }
+
+    /**
+     * The final results, without the statistics of the pipeline or the sweep.
+     */
+    private static String summary(Path log) {
+        def text = Files.readString(log)
+        def summary = text.substring(text.lastIndexOf("Num tournaments:"))
+        summary.readLines().takeWhile { !it.startsWith("Pipeline:") && !it.startsWith("Sweep:") }.join("\n")
+    }
+}
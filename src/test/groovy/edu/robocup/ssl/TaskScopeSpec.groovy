@@ -0,0 +1,56 @@
+package edu.robocup.ssl
+
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.atomic.AtomicInteger
+
+class TaskScopeSpec extends Specification {
+
+    def "Join returns after all forked tasks ended"() {
+        given:
+        def scope = new TaskScope(2, 3)
+        def done = new AtomicInteger()
+
+        when:
+        100.times { scope.fork { Thread.sleep(1); done.incrementAndGet() } }
+        scope.join()
+        scope.close()
+
+        then:
+        done.get() == 100
+        scope.numPending == 0
+    }
+
+    def "The first failure cancels the other tasks"() {
+        given:
+        def scope = new TaskScope(2, 4)
+        def started = new CountDownLatch(1)
+        def interrupted = new AtomicInteger()
+
+        when:
+        scope.fork {
+            started.countDown()
+            try {
+                Thread.sleep(60_000)
+            } catch (InterruptedException ignored) {
+                interrupted.incrementAndGet()
+            }
+        }
+        started.await()
+        scope.fork { throw new IllegalArgumentException("broken batch") }
+        while (scope.fork { }) {
+            Thread.sleep(1)
+        }
+        scope.join()
+
+        then:
+        def e = thrown(ExecutionException)
+        e.cause instanceof IllegalArgumentException
+        interrupted.get() == 1
+
+        cleanup:
+        scope.close()
+    }
+}
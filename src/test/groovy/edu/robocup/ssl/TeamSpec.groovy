@@ -46,4 +46,68 @@ class TeamSpec extends Specification {
         12         | 3        | 22    | 22
         11         | 2        | 22    | 22
     }
+
+    def "Test available start with multiple windows"() {
+        given:
+        def team = new Team("", 8, 10, [14, 18, 22, 1])
+
+        when:
+        def actualNextStart = team.nextAvailableStart(start)
+
+        then:
+        actualNextStart == nextStart
+
+        where:
+        start | nextStart
+        7     | 8
+        9     | 9
+        10    | 14
+        16    | 16
+        18    | 22
+        23    | 23
+        24    | 24
+        25    | 32
+        33    | 33
+        34    | 38
+    }
+
+    def "Test teams with the same availability share a window code"() {
+        when:
+        def teams = Team.withWindowCodes([new Team("a", 8, 10, [14, 18]), new Team("b", 14, 18, [8, 10]),
+                                          new Team("c", 8, 11), new Team("d", 8, 10)])
+
+        then:
+        teams*.windowCode() == [0, 0, 1, 2]
+    }
+
+    def "Test window codes are unique within a team list"() {
+        when:
+        def teams = Team.withWindowCodes((0..<24).collectMany { start -> [1, 5].collect { new Team("t", start, (start + it) % 24) } })
+
+        then:
+        teams*.windowCode() == (0..<48)
+    }
+
+    def "Test hours outside of a day are rejected"() {
+        when:
+        new Team("t", availStart, availEnd, additionalWindows)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        availStart | availEnd | additionalWindows
+        24         | 5        | []
+        -1         | 5        | []
+        3          | 1000     | []
+        3          | 5        | [8, 24]
+    }
+
+    def "Test teams without a team list have no window code"() {
+        when:
+        new Team("t", 3, 5).windowCode()
+
+        then:
+        thrown(IllegalStateException)
+    }
 }